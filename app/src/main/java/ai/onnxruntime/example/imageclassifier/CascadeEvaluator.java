@@ -0,0 +1,42 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import ai.onnxruntime.*;
+import android.graphics.Bitmap;
+
+import java.util.List;
+
+// Measures a cascade gate against the full detector on a local test set.
+// Every image is run through both stages, so the reported recall is exact for that set.
+public class CascadeEvaluator {
+
+    // testSet: bitmaps already scaled to the 320x320 detector input
+    public static CascadeGate.Stats evaluate(CascadeGate gate, OrtSession detector, List<Bitmap> testSet)
+            throws OrtException, InterruptedException {
+        return evaluate(gate, detector, testSet, null);
+    }
+
+    // With a scheduler every image runs as one bulk batch, so the evaluation can share the session with live frames
+    public static CascadeGate.Stats evaluate(CascadeGate gate, OrtSession detector, List<Bitmap> testSet,
+                                             InferenceScheduler scheduler)
+            throws OrtException, InterruptedException {
+        gate.reset();
+        int size = ImageUtil.IMAGE_SIZE_X;
+        int[] pixels = new int[size * size];
+        for (Bitmap bitmap : testSet) {
+            bitmap.getPixels(pixels, 0, size, 0, 0, size, size);
+            InferenceScheduler.Permit permit = scheduler != null ? scheduler.acquireBulk() : null;
+            try {
+                float score = NudeNetPipeline.scoreGate(gate, pixels, size);
+                gate.decide(score);
+                Result result = new Result();
+                NudeNetPipeline.detect(detector, pixels, size, result);
+                gate.recordAudit(score, !result.detections.isEmpty());
+            } finally {
+                if (permit != null) {
+                    permit.close();
+                }
+            }
+        }
+        return gate.getStats();
+    }
+}
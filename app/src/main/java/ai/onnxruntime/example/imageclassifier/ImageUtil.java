@@ -17,7 +17,9 @@
 package ai.onnxruntime.example.imageclassifier;
 
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 public class ImageUtil {
     public static final int DIM_BATCH_SIZE = 1;
@@ -37,15 +39,8 @@ public class ImageUtil {
         int[] bmpData = new int[stride];
         bitmap.getPixels(bmpData, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
         
-        for (int i = 0; i < IMAGE_SIZE_X; i++) {
-            for (int j = 0; j < IMAGE_SIZE_Y; j++) {
-                int idx = IMAGE_SIZE_Y * i + j;
-                int pixelValue = bmpData[idx];
-                imgData.put(idx, (((pixelValue >> 16 & 0xFF) / 255f - 0.485f) / 0.229f));
-                imgData.put(idx + stride, (((pixelValue >> 8 & 0xFF) / 255f - 0.456f) / 0.224f));
-                imgData.put(idx + stride * 2, (((pixelValue & 0xFF) / 255f - 0.406f) / 0.225f));
-            }
-        }
+        // ImageNet mean/std through per-channel lookup tables and a bulk buffer write
+        NormalizationKernels.normalize(bmpData, stride, Normalization.IMAGENET, imgData);
 
         imgData.rewind();
         return imgData;
@@ -53,43 +48,53 @@ public class ImageUtil {
 
     // Preprocessing function for NudeNet 320n model (expects [batch, channels, height, width] with RGB format and [0,1] normalization)
     public static FloatBuffer preProcessForNudeNet(Bitmap bitmap) {
-        // Ensure bitmap is exactly 320x320
-        if (bitmap.getWidth() != IMAGE_SIZE_X || bitmap.getHeight() != IMAGE_SIZE_Y) {
-            throw new IllegalArgumentException("Bitmap must be exactly " + IMAGE_SIZE_X + "x" + IMAGE_SIZE_Y);
+        return preProcessForNudeNet(bitmap, IMAGE_SIZE_X, IMAGE_SIZE_Y);
+    }
+
+    // Same as above for an arbitrary input size, e.g. the reduced-size cascade gate input
+    public static FloatBuffer preProcessForNudeNet(Bitmap bitmap, int width, int height) {
+        // Ensure bitmap matches the model input size
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            throw new IllegalArgumentException("Bitmap must be exactly " + width + "x" + height);
         }
         
-        FloatBuffer imgData = FloatBuffer.allocate(
-                DIM_BATCH_SIZE
-                        * DIM_PIXEL_SIZE
-                        * IMAGE_SIZE_X
-                        * IMAGE_SIZE_Y
-        );
-        imgData.rewind();
-        int stride = IMAGE_SIZE_X * IMAGE_SIZE_Y;
+        int[] bmpData = new int[width * height];
+        bitmap.getPixels(bmpData, 0, width, 0, 0, width, height);
         
-        // Process pixels in chunks to reduce memory pressure
-        int[] bmpData = new int[stride];
-        bitmap.getPixels(bmpData, 0, IMAGE_SIZE_X, 0, 0, IMAGE_SIZE_X, IMAGE_SIZE_Y);
-        
-        // Process pixels more efficiently
-        for (int i = 0; i < IMAGE_SIZE_X; i++) {
-            for (int j = 0; j < IMAGE_SIZE_Y; j++) {
-                int idx = IMAGE_SIZE_Y * i + j;
-                int pixelValue = bmpData[idx];
-                
-                // Normalize to [0, 1] range for NudeNet model
-                float r = (pixelValue >> 16 & 0xFF) / 255f;
-                float g = (pixelValue >> 8 & 0xFF) / 255f;
-                float b = (pixelValue & 0xFF) / 255f;
-                
-                // Store as [batch, channels, height, width] format
-                imgData.put(idx, r);                    // R channel
-                imgData.put(idx + stride, g);           // G channel  
-                imgData.put(idx + stride * 2, b);       // B channel
-            }
+        // Normalize to [0, 1] and store as [batch, channels, height, width], in row bands for large inputs
+        return ImageOps.preProcessForNudeNet(bmpData, width, height);
+    }
+
+    // Decode a stored JPEG/PNG into a letterboxed model input bitmap, see ImageOps.letterboxExtent.
+    // inSampleSize lets the decoder skip pixels instead of decoding the full resolution and shrinking afterwards.
+    public static Bitmap decodeForNudeNet(byte[] data) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IllegalArgumentException("Unsupported image format");
         }
 
-        imgData.rewind();
-        return imgData;
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = ImageOps.powerOfTwoSampleSize(options.outWidth, options.outHeight, IMAGE_SIZE_X);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap decoded = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (decoded == null) {
+            throw new IllegalArgumentException("Failed to decode image");
+        }
+
+        int width = ImageOps.letterboxExtent(decoded.getWidth(), decoded.getWidth(), decoded.getHeight(), IMAGE_SIZE_X);
+        int height = ImageOps.letterboxExtent(decoded.getHeight(), decoded.getWidth(), decoded.getHeight(), IMAGE_SIZE_X);
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded, width, height, true);
+        if (scaled != decoded) {
+            decoded.recycle();
+        }
+
+        // Copy into a black canvas, anchored top-left
+        int[] pixels = new int[IMAGE_SIZE_X * IMAGE_SIZE_Y];
+        Arrays.fill(pixels, 0xFF000000);
+        scaled.getPixels(pixels, 0, IMAGE_SIZE_X, 0, 0, width, height);
+        scaled.recycle();
+        return Bitmap.createBitmap(pixels, IMAGE_SIZE_X, IMAGE_SIZE_Y, Bitmap.Config.ARGB_8888);
     }
 }
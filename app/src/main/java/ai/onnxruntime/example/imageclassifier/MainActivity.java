@@ -23,33 +23,59 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
     private ActivityMainBinding binding;
     private ExecutorService backgroundExecutor;
-    private List<String> labelData;
+    private volatile List<String> labelData;
+    private volatile List<String> classifierLabels; // From the model metadata when the model is a classifier
     private OrtEnvironment ortEnv;
     private ImageCapture imageCapture;
     private ImageAnalysis imageAnalysis;
+    private volatile ORTAnalyzer ortAnalyzer;
+    private CompletableFuture<ORTAnalyzer> analyzerFuture;
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+    // Analyzer results, other consumers can subscribe next to the UI
+    private final ResultStream<Result> resultStream = new ResultStream<>(RESULT_BUFFER_SIZE);
+    private ResultStream<Result>.Subscription uiSubscription;
+    private boolean destroyed = false; // Main thread only, like imageAnalysis
+    // Live frames take interactive permits, background scans such as CascadeEvaluator take bulk permits
+    private final InferenceScheduler inferenceScheduler = new InferenceScheduler(
+            INFERENCE_SLOTS, 1, INFERENCE_SLOTS - 1, TARGET_LATENCY_MS
+    );
 
     private static final String TAG = "ORTImageClassifier";
     private static final int REQUEST_CODE_PERMISSIONS = 10;
+    private static final long TARGET_LATENCY_MS = 100; // Per-frame budget for the resolution controller
+    private static final int INFERENCE_SLOTS = 2; // Concurrent model runs, bulk work gets all but one
+    private static final int RESULT_BUFFER_SIZE = 16; // Results kept for subscribers that see every result
+    private static final boolean RECORD_FRAMES = false; // Record analyzed frames for replay on a workstation
+    private static final int PROFILE_RUNS = 0; // Profile this many frames with the ORT profiler, 0 disables it
     private static final String[] REQUIRED_PERMISSIONS = {Manifest.permission.CAMERA};
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        binding = ActivityMainBinding.inflate(getLayoutInflater());
-        setContentView(binding.getRoot());
-        
+
+        // Load the model on the analysis thread first, overlapping the layout, permission check and camera binding
         backgroundExecutor = Executors.newSingleThreadExecutor();
-        labelData = readLabels();
         ortEnv = OrtEnvironment.getEnvironment();
-        
+        analyzerFuture = CompletableFuture.supplyAsync(this::loadAnalyzer, backgroundExecutor);
+
+        binding = ActivityMainBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+        startupTimeline.mark("layout");
+        // The UI only ever renders the newest result, at most one update is queued on the main thread
+        uiSubscription = resultStream.subscribe(
+                ContextCompat.getMainExecutor(this), ResultStream.Delivery.LATEST, this::updateUI
+        );
+
         // Request Camera permission
         if (allPermissionsGranted()) {
+            startupTimeline.mark("permissions");
             startCamera();
         } else {
             ActivityCompat.requestPermissions(
@@ -92,8 +118,17 @@ public class MainActivity extends AppCompatActivity {
                     } catch (Exception exc) {
                         Log.e(TAG, "Use case binding failed", exc);
                     }
+                    startupTimeline.mark("camera_bound");
 
-                    setORTAnalyzer();
+                    // Attach as soon as both the camera and the model are ready, whichever finishes last.
+                    // Attaching on the main thread orders it with onDestroy.
+                    analyzerFuture.whenCompleteAsync((analyzer, e) -> {
+                        if (e != null) {
+                            Log.e(TAG, "Error loading model", e);
+                        } else {
+                            setORTAnalyzer(analyzer);
+                        }
+                    }, ContextCompat.getMainExecutor(MainActivity.this));
                 } catch (Exception e) {
                     Log.e(TAG, "Camera provider failed", e);
                 }
@@ -113,10 +148,26 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        backgroundExecutor.shutdown();
-        if (ortEnv != null) {
-            ortEnv.close();
+        destroyed = true;
+        uiSubscription.cancel();
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
         }
+        // Release native resources on the analysis thread, after the model load and any frame still being analyzed
+        ortAnalyzer = null;
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ORTAnalyzer analyzer = analyzerFuture.isCompletedExceptionally() ? null : analyzerFuture.getNow(null);
+                if (analyzer != null) {
+                    analyzer.cleanup();
+                }
+                if (ortEnv != null) {
+                    ortEnv.close();
+                }
+            }
+        });
+        backgroundExecutor.shutdown();
     }
 
     @Override
@@ -128,6 +179,7 @@ public class MainActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == REQUEST_CODE_PERMISSIONS) {
             if (allPermissionsGranted()) {
+                startupTimeline.mark("permissions");
                 startCamera();
             } else {
                 Toast.makeText(
@@ -140,95 +192,125 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Runs on the main thread with the newest result, see the UI subscription in onCreate
     private void updateUI(Result result) {
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                // Update bounding box overlay with all detections
-                binding.boundingBoxOverlay.updateDetections(result.detections);
-                
-                // Show detection count and summary
-                int detectionCount = result.detections.size();
-                if (detectionCount > 0) {
-                    // Sort detections by confidence (descending)
-                    List<DetectionResult> sortedDetections = new ArrayList<>(result.detections);
-                    sortedDetections.sort((a, b) -> Float.compare(b.confidence, a.confidence));
-                    DetectionResult topDetection = sortedDetections.get(0);
-                    
-                    // Show detection summary
-                    binding.detectedItem1.setText("Detections: " + detectionCount);
-                    binding.detectedItemValue1.setText("Top: " + (int)(topDetection.confidence * 100) + "%");
-                    
-                    // Color code based on highest confidence
-                    int detectionColor = topDetection.confidence > 0.5f ? 
-                        android.graphics.Color.RED : android.graphics.Color.BLUE;
-                    binding.detectedItem1.setTextColor(detectionColor);
-                    binding.detectedItemValue1.setTextColor(detectionColor);
-                    
-                    // Update progress bar with top detection confidence
-                    binding.percentMeter.setProgress((int)(topDetection.confidence * 100));
-                    
-                    // Show class breakdown
-                    // Group by class index and count occurrences
-                    int[] classCounts = new int[18]; // NudeNet has 18 classes
-                    for (DetectionResult detection : result.detections) {
-                        if (detection.classIndex < classCounts.length) {
-                            classCounts[detection.classIndex]++;
-                        }
-                    }
-                    
-                    // Find top two classes
-                    int maxCount = 0;
-                    int maxClass = -1;
-                    int secondCount = 0;
-                    int secondClass = -1;
-                    
-                    for (int i = 0; i < classCounts.length; i++) {
-                        if (classCounts[i] > maxCount) {
-                            secondCount = maxCount;
-                            secondClass = maxClass;
-                            maxCount = classCounts[i];
-                            maxClass = i;
-                        } else if (classCounts[i] > secondCount) {
-                            secondCount = classCounts[i];
-                            secondClass = i;
-                        }
-                    }
-                    
-                    if (maxClass >= 0) {
-                        String classLabel = maxClass < labelData.size() ? 
-                            labelData.get(maxClass) : "UNKNOWN_" + maxClass;
-                        binding.detectedItem2.setText("Most detected: " + classLabel);
-                        binding.detectedItemValue2.setText("Count: " + maxCount);
-                    } else {
-                        binding.detectedItem2.setText("");
-                        binding.detectedItemValue2.setText("");
-                    }
-                    
-                    if (secondClass >= 0) {
-                        String classLabel = secondClass < labelData.size() ? 
-                            labelData.get(secondClass) : "UNKNOWN_" + secondClass;
-                        binding.detectedItem3.setText("Second: " + classLabel);
-                        binding.detectedItemValue3.setText("Count: " + secondCount);
-                    } else {
-                        binding.detectedItem3.setText("");
-                        binding.detectedItemValue3.setText("");
-                    }
-                } else {
-                    binding.detectedItem1.setText("No detections");
-                    binding.detectedItemValue1.setText("");
-                    binding.detectedItem1.setTextColor(android.graphics.Color.GRAY);
-                    binding.detectedItemValue1.setTextColor(android.graphics.Color.GRAY);
-                    binding.percentMeter.setProgress(0);
-                    binding.detectedItem2.setText("");
-                    binding.detectedItemValue2.setText("");
-                    binding.detectedItem3.setText("");
-                    binding.detectedItemValue3.setText("");
+        if (startupTimeline.mark("first_result")) {
+            Log.i(TAG, "Startup: " + startupTimeline);
+        }
+        // Update bounding box overlay with all detections
+        binding.boundingBoxOverlay.updateDetections(result.detections);
+
+        // Classifier heads report top-K classes without boxes
+        if (result.detections.isEmpty() && !result.detectedIndices.isEmpty()) {
+            showClassification(result);
+            binding.inferenceTimeValue.setText(result.processTimeMs + "ms");
+            return;
+        }
+        
+        // Show detection count and summary
+        int detectionCount = result.detections.size();
+        if (detectionCount > 0) {
+            // Sort detections by confidence (descending)
+            List<DetectionResult> sortedDetections = new ArrayList<>(result.detections);
+            sortedDetections.sort((a, b) -> Float.compare(b.confidence, a.confidence));
+            DetectionResult topDetection = sortedDetections.get(0);
+            
+            // Show detection summary
+            binding.detectedItem1.setText("Detections: " + detectionCount);
+            binding.detectedItemValue1.setText("Top: " + (int)(topDetection.confidence * 100) + "%");
+            
+            // Color code based on highest confidence
+            int detectionColor = topDetection.confidence > 0.5f ? 
+                android.graphics.Color.RED : android.graphics.Color.BLUE;
+            binding.detectedItem1.setTextColor(detectionColor);
+            binding.detectedItemValue1.setTextColor(detectionColor);
+            
+            // Update progress bar with top detection confidence
+            binding.percentMeter.setProgress((int)(topDetection.confidence * 100));
+            
+            // Show class breakdown
+            // Group by class index and count occurrences
+            int[] classCounts = new int[18]; // NudeNet has 18 classes
+            for (DetectionResult detection : result.detections) {
+                if (detection.classIndex < classCounts.length) {
+                    classCounts[detection.classIndex]++;
+                }
+            }
+            
+            // Find top two classes
+            int maxCount = 0;
+            int maxClass = -1;
+            int secondCount = 0;
+            int secondClass = -1;
+            
+            for (int i = 0; i < classCounts.length; i++) {
+                if (classCounts[i] > maxCount) {
+                    secondCount = maxCount;
+                    secondClass = maxClass;
+                    maxCount = classCounts[i];
+                    maxClass = i;
+                } else if (classCounts[i] > secondCount) {
+                    secondCount = classCounts[i];
+                    secondClass = i;
                 }
+            }
+            
+            if (maxClass >= 0) {
+                String classLabel = maxClass < labelData.size() ? 
+                    labelData.get(maxClass) : "UNKNOWN_" + maxClass;
+                binding.detectedItem2.setText("Most detected: " + classLabel);
+                binding.detectedItemValue2.setText("Count: " + maxCount);
+            } else {
+                binding.detectedItem2.setText("");
+                binding.detectedItemValue2.setText("");
+            }
+            
+            if (secondClass >= 0) {
+                String classLabel = secondClass < labelData.size() ? 
+                    labelData.get(secondClass) : "UNKNOWN_" + secondClass;
+                binding.detectedItem3.setText("Second: " + classLabel);
+                binding.detectedItemValue3.setText("Count: " + secondCount);
+            } else {
+                binding.detectedItem3.setText("");
+                binding.detectedItemValue3.setText("");
+            }
+        } else {
+            binding.detectedItem1.setText("No detections");
+            binding.detectedItemValue1.setText("");
+            binding.detectedItem1.setTextColor(android.graphics.Color.GRAY);
+            binding.detectedItemValue1.setTextColor(android.graphics.Color.GRAY);
+            binding.percentMeter.setProgress(0);
+            binding.detectedItem2.setText("");
+            binding.detectedItemValue2.setText("");
+            binding.detectedItem3.setText("");
+            binding.detectedItemValue3.setText("");
+        }
+
+        binding.inferenceTimeValue.setText(result.processTimeMs + "ms");
+    }
 
-                binding.inferenceTimeValue.setText(result.processTimeMs + "ms");
+    // Top classifier classes with their probabilities, one per summary row
+    private void showClassification(Result result) {
+        android.widget.TextView[] names = {binding.detectedItem1, binding.detectedItem2, binding.detectedItem3};
+        android.widget.TextView[] values =
+                {binding.detectedItemValue1, binding.detectedItemValue2, binding.detectedItemValue3};
+        List<String> labels = classifierLabels;
+        for (int i = 0; i < names.length; i++) {
+            if (i < result.detectedIndices.size()) {
+                int classIndex = result.detectedIndices.get(i);
+                names[i].setText(labels != null && classIndex < labels.size()
+                        ? labels.get(classIndex) : "Class " + classIndex);
+                values[i].setText((int) (result.detectedScore.get(i) * 100) + "%");
+            } else {
+                names[i].setText("");
+                values[i].setText("");
             }
-        });
+        }
+        float top = result.detectedScore.get(0);
+        int color = top > 0.5f ? android.graphics.Color.RED : android.graphics.Color.BLUE;
+        binding.detectedItem1.setTextColor(color);
+        binding.detectedItemValue1.setTextColor(color);
+        binding.percentMeter.setProgress((int) (top * 100));
     }
 
     // Read NSFW classification labels
@@ -248,8 +330,12 @@ public class MainActivity extends AppCompatActivity {
 
     // Read NudeNet 320n model into a ByteArray, run in background
     private byte[] readModel() {
+        return readModel(R.raw.nudenet_320n);
+    }
+
+    private byte[] readModel(int resId) {
         try {
-            java.io.InputStream inputStream = getResources().openRawResource(R.raw.nudenet_320n);
+            java.io.InputStream inputStream = getResources().openRawResource(resId);
             java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
             int nRead;
             byte[] data = new byte[16384];
@@ -267,32 +353,135 @@ public class MainActivity extends AppCompatActivity {
     // Create a new ORT session in background
     private OrtSession createOrtSession() {
         try {
-            return ortEnv.createSession(readModel());
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            if (PROFILE_RUNS > 0) {
+                OrtProfiler.enable(options, new java.io.File(getCacheDir(), "ort_profile"));
+            }
+            return ortEnv.createSession(readModel(), options);
         } catch (Exception e) {
             Log.e(TAG, "Error creating ORT session", e);
             return null;
         }
     }
 
-    // Create a new ORT session and then change the ImageAnalysis.Analyzer
-    // This part is done in background to avoid blocking the UI
-    private void setORTAnalyzer() {
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                if (imageAnalysis != null) {
-                    imageAnalysis.clearAnalyzer();
-                    
-                    // Create analyzer with memory-optimized settings
-                    ORTAnalyzer analyzer = new ORTAnalyzer(createOrtSession(), MainActivity.this::updateUI);
-                    
-                    // Set analyzer with optimized backpressure strategy
-                    imageAnalysis.setAnalyzer(
-                            backgroundExecutor,
-                            analyzer
-                    );
+    // Create the cascade gate, a separate nsfw_gate classifier if the app ships one,
+    // otherwise the detector session at a reduced input size when its spatial axes are dynamic
+    private CascadeGate createCascadeGate(OrtSession detector) {
+        if (detector == null) {
+            return null;
+        }
+        try {
+            int gateResId = getResources().getIdentifier("nsfw_gate", "raw", getPackageName());
+            if (gateResId != 0) {
+                OrtSession gateSession = ortEnv.createSession(readModel(gateResId));
+                try {
+                    int gateSize = ModelHeads.fixedInputSize(gateSession);
+                    return new CascadeGate(gateSession, true,
+                            gateSize > 0 ? gateSize : CascadeGate.DEFAULT_INPUT_SIZE, CascadeGate.DEFAULT_THRESHOLD,
+                            CascadeGate.DEFAULT_AUDIT_INTERVAL);
+                } catch (Exception e) {
+                    gateSession.close();
+                    throw e;
                 }
             }
-        }).start();
+            if (PROFILE_RUNS > 0) {
+                // Gate runs on the profiled detector session would mix 160x160 runs into the report
+                Log.i(TAG, "Profiling, cascade gate on the detector session disabled");
+                return null;
+            }
+            CascadeGate gate = CascadeGate.fromDetector(detector, CascadeGate.DEFAULT_INPUT_SIZE,
+                    CascadeGate.DEFAULT_THRESHOLD, CascadeGate.DEFAULT_AUDIT_INTERVAL);
+            if (gate == null) {
+                Log.i(TAG, "Model has fixed input size, cascade gate disabled");
+            }
+            return gate;
+        } catch (Exception e) {
+            Log.e(TAG, "Error creating cascade gate", e);
+            return null;
+        }
+    }
+
+    // Adapt the input resolution to the latency budget, only possible if the model has dynamic spatial axes
+    private ResolutionController createResolutionController(OrtSession detector) {
+        try {
+            if (detector != null && CascadeGate.hasDynamicSpatialAxes(detector)) {
+                return new ResolutionController(TARGET_LATENCY_MS);
+            }
+        } catch (OrtException e) {
+            Log.e(TAG, "Error reading model input info", e);
+        }
+        return null;
+    }
+
+    // Frames are written to the app's external files directory, pull them with adb for the replay tool
+    private FrameRecorder createFrameRecorder() {
+        if (!RECORD_FRAMES) {
+            return null;
+        }
+        java.io.File file = new java.io.File(getExternalFilesDir(null), "frames-" + System.currentTimeMillis() + ".bin");
+        try {
+            Log.i(TAG, "Recording frames to " + file);
+            return new FrameRecorder(new java.io.FileOutputStream(file));
+        } catch (IOException e) {
+            Log.e(TAG, "Error creating frame recording", e);
+            return null;
+        }
+    }
+
+    // Read labels, create the ORT session and warm it up, runs in background at startup
+    private ORTAnalyzer loadAnalyzer() {
+        labelData = readLabels();
+        startupTimeline.mark("labels");
+
+        OrtSession session = createOrtSession();
+        startupTimeline.mark("session");
+        if (session != null) {
+            try {
+                classifierLabels = ModelHeads.labels(session);
+            } catch (OrtException e) {
+                Log.e(TAG, "Error reading model metadata", e);
+            }
+        }
+        NudeNetPipeline pipeline = new NudeNetPipeline(
+                session, createCascadeGate(session), createResolutionController(session)
+        );
+        int warmUpRuns = 0;
+        if (session != null) {
+            try {
+                pipeline.warmUp();
+                warmUpRuns = 1;
+            } catch (OrtException e) {
+                Log.e(TAG, "Error warming up ORT session", e);
+            }
+        }
+        startupTimeline.mark("warm_up");
+
+        ORTAnalyzer analyzer = new ORTAnalyzer(pipeline, createFrameRecorder(), resultStream);
+        if (PROFILE_RUNS > 0 && session != null) {
+            // Leave the cold warm-up run out of the per-operator means
+            analyzer.setProfiler(new OrtProfiler(session, PROFILE_RUNS, warmUpRuns));
+        }
+        analyzer.setScheduler(inferenceScheduler);
+        return analyzer;
+    }
+
+    // Change the ImageAnalysis.Analyzer, runs on the main thread
+    private void setORTAnalyzer(ORTAnalyzer analyzer) {
+        if (imageAnalysis == null || destroyed) {
+            return;
+        }
+        // Set analyzer with optimized backpressure strategy
+        imageAnalysis.setAnalyzer(
+                backgroundExecutor,
+                analyzer
+        );
+        startupTimeline.mark("analyzer_attached");
+
+        // Free the previous analyzer's session once its last frame is done
+        final ORTAnalyzer previous = ortAnalyzer;
+        ortAnalyzer = analyzer;
+        if (previous != null && previous != analyzer) {
+            backgroundExecutor.execute(previous::cleanup);
+        }
     }
 }
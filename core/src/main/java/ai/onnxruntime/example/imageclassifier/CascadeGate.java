@@ -0,0 +1,205 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import ai.onnxruntime.*;
+
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+// First stage of the detection cascade.
+// A cheap whole-frame score decides whether the full 320x320 NudeNet detector runs for a frame.
+// The gate is either a separate small classifier model or the detector itself at a reduced input size
+// (only possible when the model has dynamic spatial axes). A classifier gate must declare its unsafe classes in
+// the nsfw.unsafe_classes metadata, see ModelHeads, and is fed with the normalization its metadata names.
+public class CascadeGate {
+    public static final int DEFAULT_INPUT_SIZE = 160;
+    public static final float DEFAULT_THRESHOLD = 0.1f; // Below the 0.2 detection threshold to keep recall high
+    public static final int DEFAULT_AUDIT_INTERVAL = 30;
+
+    private final OrtSession session;
+    private final boolean ownsSession;
+    private final String inputName;
+    private final int inputSize;
+    private final float threshold;
+    private final int auditInterval;
+    private final ModelHead head;
+    private final int[] unsafeClasses; // Classifier gates only
+    private float[] probabilities = new float[0];
+
+    private final AtomicLong framesScored = new AtomicLong();
+    private final AtomicLong framesPassed = new AtomicLong();
+    private final AtomicLong framesAudited = new AtomicLong();
+    private final AtomicLong positives = new AtomicLong();
+    private final AtomicLong positivesPassed = new AtomicLong();
+
+    // auditInterval: every Nth frame runs the full detector whatever its score to measure recall, 0 disables auditing
+    public CascadeGate(OrtSession session, boolean ownsSession, int inputSize, float threshold, int auditInterval)
+            throws OrtException {
+        this.session = session;
+        this.ownsSession = ownsSession;
+        this.inputName = session.getInputNames().iterator().next();
+        this.inputSize = inputSize;
+        this.threshold = threshold;
+        this.auditInterval = auditInterval;
+        this.head = ModelHeads.forSession(session);
+        if (head instanceof ClassifierHead) {
+            this.unsafeClasses = ModelHeads.unsafeClasses(session);
+            if (unsafeClasses == null) {
+                throw new IllegalArgumentException("Classifier gate needs " + ModelHeads.UNSAFE_CLASSES_KEY
+                        + " metadata");
+            }
+        } else {
+            this.unsafeClasses = null;
+        }
+    }
+
+    // Gate that reuses the detector session at a reduced input size, returns null if the model has fixed spatial axes
+    public static CascadeGate fromDetector(OrtSession detector, int inputSize, float threshold, int auditInterval)
+            throws OrtException {
+        if (!hasDynamicSpatialAxes(detector)) {
+            return null;
+        }
+        return new CascadeGate(detector, false, inputSize, threshold, auditInterval);
+    }
+
+    public static boolean hasDynamicSpatialAxes(OrtSession session) throws OrtException {
+        NodeInfo info = session.getInputInfo().values().iterator().next();
+        if (!(info.getInfo() instanceof TensorInfo)) {
+            return false;
+        }
+        long[] shape = ((TensorInfo) info.getInfo()).getShape();
+        return shape.length == 4 && shape[2] < 0 && shape[3] < 0;
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public Normalization getInputNormalization() {
+        return head.getInputNormalization();
+    }
+
+    // Score a [1, 3, inputSize, inputSize] input normalized with getInputNormalization().
+    // Detector outputs [1, features, anchors] are reduced to the best class score, classifier outputs [1, classes]
+    // to the total probability of the unsafe classes, after softmax unless the model outputs probabilities.
+    public float score(FloatBuffer input) throws OrtException {
+        long[] shape = {1, 3, inputSize, inputSize};
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, input, shape);
+             OrtSession.Result output = session.run(Collections.singletonMap(inputName, tensor))) {
+            Object value = output.get(0).getValue();
+            if (value instanceof float[][][]) {
+                return DetectionDecoder.maxClassScore(((float[][][]) value)[0]);
+            }
+            float[] scores = ((float[][]) value)[0];
+            if (((ClassifierHead) head).appliesSoftmax()) {
+                if (probabilities.length < scores.length) {
+                    probabilities = new float[scores.length];
+                }
+                ClassifierHead.softMax(scores, probabilities, scores.length);
+                scores = probabilities;
+            }
+            return unsafeScore(scores, unsafeClasses);
+        }
+    }
+
+    static float unsafeScore(float[] probabilities, int[] unsafeClasses) {
+        float sum = 0f;
+        for (int classIndex : unsafeClasses) {
+            if (classIndex >= 0 && classIndex < probabilities.length) {
+                sum += probabilities[classIndex];
+            }
+        }
+        return sum;
+    }
+
+    // Record the gate decision for a frame.
+    // Every Nth frame is audited regardless of its score so recall is measured on an unbiased sample.
+    public Decision decide(float score) {
+        long frame = framesScored.incrementAndGet();
+        boolean passed = score >= threshold;
+        if (passed) {
+            framesPassed.incrementAndGet();
+        }
+        if (auditInterval > 0 && frame % auditInterval == 0) {
+            return Decision.AUDIT;
+        }
+        return passed ? Decision.RUN : Decision.SKIP;
+    }
+
+    // Record the full detector verdict for an audited frame
+    public void recordAudit(float score, boolean detectorPositive) {
+        framesAudited.incrementAndGet();
+        if (detectorPositive) {
+            positives.incrementAndGet();
+            if (score >= threshold) {
+                positivesPassed.incrementAndGet();
+            }
+        }
+    }
+
+    public enum Decision {
+        SKIP,   // Gated out, the detector does not run
+        RUN,    // Passed the gate
+        AUDIT   // Detector runs and its verdict is recorded against the gate decision
+    }
+
+    public Stats getStats() {
+        return new Stats(framesScored.get(), framesPassed.get(), framesAudited.get(),
+                positives.get(), positivesPassed.get());
+    }
+
+    public void reset() {
+        framesScored.set(0);
+        framesPassed.set(0);
+        framesAudited.set(0);
+        positives.set(0);
+        positivesPassed.set(0);
+    }
+
+    public void close() {
+        if (ownsSession) {
+            try {
+                session.close();
+            } catch (OrtException e) {
+                // Nothing left to do with a session that fails to close
+            }
+        }
+    }
+
+    public static class Stats {
+        public final long framesScored;
+        public final long framesPassed;
+        public final long framesAudited;
+        public final long positives;
+        public final long positivesPassed;
+
+        public Stats(long framesScored, long framesPassed, long framesAudited, long positives, long positivesPassed) {
+            this.framesScored = framesScored;
+            this.framesPassed = framesPassed;
+            this.framesAudited = framesAudited;
+            this.positives = positives;
+            this.positivesPassed = positivesPassed;
+        }
+
+        // Share of frames that went on to the full detector
+        public float passRate() {
+            return framesScored == 0 ? 0f : (float) framesPassed / framesScored;
+        }
+
+        // Share of detector-positive frames that the gate let through, measured on audited frames
+        public float recall() {
+            return positives == 0 ? 1f : (float) positivesPassed / positives;
+        }
+
+        @Override
+        public String toString() {
+            return "scored=" + framesScored + ", passRate=" + passRate()
+                    + ", audited=" + framesAudited + ", positives=" + positives + ", recall=" + recall();
+        }
+    }
+}
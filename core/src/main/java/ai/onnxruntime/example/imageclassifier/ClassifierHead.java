@@ -0,0 +1,137 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Head for whole-image classifiers, output [1, classes] of logits or probabilities.
+// Stores the top-K classes with their probabilities in Result.detectedIndices / detectedScore.
+public class ClassifierHead implements ModelHead {
+    private final int k;
+    private final boolean applySoftmax;
+    private final Normalization normalization;
+    private float[] probabilities = new float[0];
+    private final int[] topIndices;
+
+    public ClassifierHead(int k, boolean applySoftmax, Normalization normalization) {
+        this.k = k;
+        this.applySoftmax = applySoftmax;
+        this.normalization = normalization;
+        this.topIndices = new int[k];
+    }
+
+    // False when the model already outputs probabilities
+    public boolean appliesSoftmax() {
+        return applySoftmax;
+    }
+
+    @Override
+    public Normalization getInputNormalization() {
+        return normalization;
+    }
+
+    @Override
+    public void decode(Object output, int inputSize, Result result) {
+        float[] scores = ((float[][]) output)[0];
+        if (applySoftmax) {
+            if (probabilities.length < scores.length) {
+                probabilities = new float[scores.length];
+            }
+            softMax(scores, probabilities, scores.length);
+            scores = probabilities;
+        }
+        int count = topK(scores, scores.length, k, topIndices);
+
+        List<Integer> detectedIndices = new ArrayList<>(count);
+        List<Float> detectedScores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            detectedIndices.add(topIndices[i]);
+            detectedScores.add(scores[topIndices[i]]);
+        }
+        result.detectedIndices = detectedIndices;
+        result.detectedScore = detectedScores;
+    }
+
+    // Numerically stable softmax of values[0, n) into out, seeded with the largest logit so all-negative
+    // inputs do not underflow. out may be values itself.
+    public static void softMax(float[] values, float[] out, int n) {
+        if (n == 0) {
+            return;
+        }
+        float max = values[0];
+        for (int i = 1; i < n; i++) {
+            if (values[i] > max) max = values[i];
+        }
+        float sum = 0f;
+        for (int i = 0; i < n; i++) {
+            out[i] = (float) Math.exp(values[i] - max);
+            sum += out[i];
+        }
+        for (int i = 0; i < n; i++) {
+            out[i] /= sum;
+        }
+    }
+
+    // Indices of the k largest values[0, n) in descending order, lower index first on ties.
+    // Uses a size-k min-heap in out, O(n log k). Returns min(k, n), NaN values are skipped.
+    public static int topK(float[] values, int n, int k, int[] out) {
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            float value = values[i];
+            if (value != value) {
+                continue;
+            }
+            if (size < k) {
+                out[size] = i;
+                siftUp(values, out, size++);
+            } else if (k > 0 && value > values[out[0]]) {
+                out[0] = i;
+                siftDown(values, out, 0, size);
+            }
+        }
+        // Pop the heap from the back to get descending order
+        for (int end = size - 1; end > 0; end--) {
+            int root = out[0];
+            out[0] = out[end];
+            out[end] = root;
+            siftDown(values, out, 0, end);
+        }
+        return size;
+    }
+
+    // Heap order: smaller value first, on equal values the higher index is considered smaller
+    private static boolean before(float[] values, int a, int b) {
+        return values[a] < values[b] || values[a] == values[b] && a > b;
+    }
+
+    private static void siftUp(float[] values, int[] heap, int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(values, heap[pos], heap[parent])) {
+                return;
+            }
+            int tmp = heap[pos];
+            heap[pos] = heap[parent];
+            heap[parent] = tmp;
+            pos = parent;
+        }
+    }
+
+    private static void siftDown(float[] values, int[] heap, int pos, int size) {
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && before(values, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(values, heap[child], heap[pos])) {
+                return;
+            }
+            int tmp = heap[pos];
+            heap[pos] = heap[child];
+            heap[child] = tmp;
+            pos = child;
+        }
+    }
+}
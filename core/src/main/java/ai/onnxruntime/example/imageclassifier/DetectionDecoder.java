@@ -0,0 +1,88 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.List;
+
+// Decodes the NudeNet 320n output into detections.
+// The model produces [batch, features, anchors]; callers pass the [features, anchors] slice of a single batch entry.
+// Each anchor has 22 features: [x, y, w, h, class_scores...]
+// The anchor grid follows the input size (strides 8, 16 and 32), boxes are in input pixels.
+public class DetectionDecoder {
+    public static final int[] STRIDES = {8, 16, 32};
+    public static final int MAX_STRIDE = 32;
+    public static final int REFERENCE_SIZE = 320; // NudeNet 320n native input size
+    public static final int NUM_BOX_FEATURES = 4;
+    public static final int NUM_CLASSES = 18;
+    public static final float SCORE_THRESHOLD = 0.2f; // NudeNet threshold is 0.2
+
+    public static List<DetectionResult> decode(float[][] outputArray) {
+        return decode(outputArray, SCORE_THRESHOLD);
+    }
+
+    public static List<DetectionResult> decode(float[][] outputArray, float threshold) {
+        return decode(outputArray, threshold, REFERENCE_SIZE);
+    }
+
+    // Decode the output of a model run at inputSize x inputSize.
+    // Boxes are rescaled to the 320x320 reference frame so consumers see the same coordinates at any resolution.
+    public static List<DetectionResult> decode(float[][] outputArray, float threshold, int inputSize) {
+        int numFeatures = outputArray.length;
+        int numDetections = numFeatures > 0 ? outputArray[0].length : 0;
+        int expected = anchorCount(inputSize);
+        if (numDetections != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " anchors for " + inputSize + "x"
+                    + inputSize + " input, got " + numDetections);
+        }
+        float scale = (float) REFERENCE_SIZE / inputSize;
+        int numClasses = Math.min(NUM_CLASSES, Math.max(0, numFeatures - NUM_BOX_FEATURES));
+
+        return ParallelKernels.decode(outputArray, threshold, scale, numClasses);
+    }
+
+    // Decode anchors [from, to) into detections, shared by the serial and the banded parallel path
+    static void decodeRange(float[][] outputArray, float threshold, float scale, int numClasses,
+                            int from, int to, List<DetectionResult> detections) {
+        for (int i = from; i < to; i++) {
+            // Pick the best class for this anchor, first index wins on ties
+            float maxClassScore = 0f;
+            int classIndex = -1;
+            for (int j = 0; j < numClasses; j++) {
+                float score = outputArray[NUM_BOX_FEATURES + j][i];
+                if (score > maxClassScore || classIndex < 0 && score == maxClassScore) {
+                    maxClassScore = score;
+                    classIndex = j;
+                }
+            }
+
+            if (maxClassScore >= threshold) {
+                detections.add(new DetectionResult(
+                        outputArray[0][i] * scale,  // x coordinate
+                        outputArray[1][i] * scale,  // y coordinate
+                        outputArray[2][i] * scale,  // width
+                        outputArray[3][i] * scale,  // height
+                        maxClassScore, classIndex
+                ));
+            }
+        }
+    }
+
+    // Number of anchors over all detection grids, 2100 for 320x320
+    public static int anchorCount(int inputSize) {
+        int count = 0;
+        for (int stride : STRIDES) {
+            int cells = inputSize / stride;
+            count += cells * cells;
+        }
+        return count;
+    }
+
+    // Highest class score over all anchors, used as a whole-frame score
+    public static float maxClassScore(float[][] outputArray) {
+        float max = 0f;
+        for (int j = NUM_BOX_FEATURES; j < outputArray.length; j++) {
+            for (float score : outputArray[j]) {
+                if (score > max) max = score;
+            }
+        }
+        return max;
+    }
+}
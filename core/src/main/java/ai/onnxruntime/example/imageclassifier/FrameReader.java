@@ -0,0 +1,52 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Reads frames written by FrameRecorder
+public class FrameReader implements Closeable {
+    private final DataInputStream in;
+
+    public FrameReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (this.in.readInt() != FrameRecorder.MAGIC) {
+            throw new IOException("Not a frame recording");
+        }
+        int version = this.in.readInt();
+        if (version != FrameRecorder.VERSION) {
+            throw new IOException("Unsupported frame recording version " + version);
+        }
+    }
+
+    // Next recorded frame, or null at the end of the recording
+    public YuvFrame read() throws IOException {
+        long timestampNs;
+        try {
+            timestampNs = in.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        int width = in.readInt();
+        int height = in.readInt();
+        int rotationDegrees = in.readInt();
+        YuvFrame.Plane[] planes = new YuvFrame.Plane[in.readInt()];
+        for (int i = 0; i < planes.length; i++) {
+            int rowStride = in.readInt();
+            int pixelStride = in.readInt();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            planes[i] = new YuvFrame.Plane(ByteBuffer.wrap(data), rowStride, pixelStride);
+        }
+        return new YuvFrame(width, height, rotationDegrees, timestampNs, planes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,58 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+// Records camera frames to a compact binary file for deterministic replay with FrameReader.
+// File: [magic, version], then per frame
+// [timestampNs(8), width, height, rotationDegrees, planeCount, planes * (rowStride, pixelStride, length, bytes)]
+public class FrameRecorder implements Closeable {
+    static final int MAGIC = 0x4E465231; // "NFR1"
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private byte[] scratch = new byte[0];
+    private int framesWritten = 0;
+
+    public FrameRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    // Copy the frame planes to the recording, the frame buffers are left untouched
+    public synchronized void write(YuvFrame frame) throws IOException {
+        out.writeLong(frame.timestampNs);
+        out.writeInt(frame.width);
+        out.writeInt(frame.height);
+        out.writeInt(frame.rotationDegrees);
+        out.writeInt(frame.planes.length);
+        for (YuvFrame.Plane plane : frame.planes) {
+            ByteBuffer buffer = plane.buffer.duplicate();
+            buffer.rewind();
+            int length = buffer.remaining();
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            buffer.get(scratch, 0, length);
+            out.writeInt(plane.rowStride);
+            out.writeInt(plane.pixelStride);
+            out.writeInt(length);
+            out.write(scratch, 0, length);
+        }
+        framesWritten++;
+    }
+
+    public synchronized int getFramesWritten() {
+        return framesWritten;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,115 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+// Pixel stages of the NudeNet pipeline on packed ARGB int arrays, shared by the Android analyzer and the JVM tools
+public class ImageOps {
+
+    // Sampling factor applied while converting large frames, to avoid converting pixels that scaling drops anyway
+    public static int sampleSize(int width, int height) {
+        int maxDimension = Math.max(width, height);
+        if (maxDimension > 4096) {
+            // For very large images (>4K), sample down first
+            return maxDimension / 2048;
+        } else if (maxDimension > 2048) {
+            return maxDimension / 1024;
+        }
+        return 1;
+    }
+
+    // Subsampling factor for decoding stored images: the largest one that still leaves the longer side at least
+    // size pixels, so letterboxing to size x size only ever shrinks the decoded image
+    public static int decodeSampleSize(int width, int height, int size) {
+        return Math.max(1, Math.max(width, height) / size);
+    }
+
+    // Same for decoders that only subsample by powers of two, such as BitmapFactory's inSampleSize
+    public static int powerOfTwoSampleSize(int width, int height, int size) {
+        return Integer.highestOneBit(decodeSampleSize(width, height, size));
+    }
+
+    // Letterboxed extent of one side: the longer side fills size and the aspect ratio is kept.
+    // Images are anchored top-left and padded black like NudeNet's own preprocessing, so detection boxes map
+    // back to the image by multiplying with max(width, height) / size.
+    public static int letterboxExtent(int dimension, int width, int height, int size) {
+        return Math.max(1, Math.round((float) dimension * size / Math.max(width, height)));
+    }
+
+    // Convert the Y plane of a frame to grayscale ARGB, keeping every sampleSize-th pixel in both directions
+    public static int[] yPlaneToArgb(YuvFrame frame, int sampleSize) {
+        YuvFrame.Plane plane = frame.planes[0];
+        int sampledWidth = frame.width / sampleSize;
+        int sampledHeight = frame.height / sampleSize;
+        ByteBuffer buffer = plane.buffer;
+        int limit = buffer.limit();
+        int[] pixels = new int[sampledWidth * sampledHeight];
+
+        // Full camera frames are the largest per-frame pass, convert them in row bands
+        ParallelKernels.forRows(sampledHeight, sampledWidth, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                int rowIndex = y * sampleSize * plane.rowStride;
+                for (int x = 0; x < sampledWidth; x++) {
+                    int bufferIndex = rowIndex + x * sampleSize * plane.pixelStride;
+                    if (bufferIndex < limit) {
+                        int yValue = buffer.get(bufferIndex) & 0xFF;
+                        pixels[y * sampledWidth + x] = 0xFF000000 | (yValue << 16) | (yValue << 8) | yValue;
+                    }
+                }
+            }
+        });
+        return pixels;
+    }
+
+    // Nearest-neighbour scaling, sampling source pixel centers
+    public static int[] scale(int[] src, int srcWidth, int srcHeight, int dstWidth, int dstHeight) {
+        if (srcWidth == dstWidth && srcHeight == dstHeight) {
+            return src;
+        }
+        int[] dst = new int[dstWidth * dstHeight];
+        int[] srcX = new int[dstWidth];
+        for (int x = 0; x < dstWidth; x++) {
+            srcX[x] = (int) ((2L * x + 1) * srcWidth / (2L * dstWidth));
+        }
+        ParallelKernels.forRows(dstHeight, dstWidth, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                int srcRow = (int) ((2L * y + 1) * srcHeight / (2L * dstHeight)) * srcWidth;
+                int dstRow = y * dstWidth;
+                for (int x = 0; x < dstWidth; x++) {
+                    dst[dstRow + x] = src[srcRow + srcX[x]];
+                }
+            }
+        });
+        return dst;
+    }
+
+    // Rotate clockwise by a multiple of 90 degrees, width and height swap for 90 and 270
+    public static int[] rotate(int[] src, int width, int height, int degrees) {
+        int turns = ((degrees / 90) % 4 + 4) % 4;
+        if (turns == 0) {
+            return src;
+        }
+        int[] dst = new int[src.length];
+        // Source row bands write disjoint destination pixels
+        ParallelKernels.forRows(height, width, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                for (int x = 0; x < width; x++) {
+                    int pixel = src[y * width + x];
+                    switch (turns) {
+                        case 1: dst[x * height + (height - 1 - y)] = pixel; break;
+                        case 2: dst[(height - 1 - y) * width + (width - 1 - x)] = pixel; break;
+                        default: dst[(width - 1 - x) * height + y] = pixel; break;
+                    }
+                }
+            }
+        });
+        return dst;
+    }
+
+    // NCHW [1, 3, height, width] input normalized to [0, 1], as expected by the NudeNet model
+    public static FloatBuffer preProcessForNudeNet(int[] pixels, int width, int height) {
+        float[] imgData = new float[3 * width * height];
+        ParallelKernels.normalizeToNchw(pixels, width, height, imgData);
+        return FloatBuffer.wrap(imgData);
+    }
+}
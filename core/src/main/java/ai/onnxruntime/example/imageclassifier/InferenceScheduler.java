@@ -0,0 +1,153 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Shares inference capacity between live camera frames and background scans.
+// Callers take a permit before running the model and close it afterwards, so any session or thread can be used.
+//  - INTERACTIVE: live frames. Only the newest waiting frame is kept, and a frame that waited longer than the
+//    latency SLO is dropped as stale rather than run late.
+//  - BULK: batch scans. A permit covers one batch, so scans are preempted between batches: no bulk batch starts
+//    while a live frame waits, or while a live frame runs and recent live latency misses the SLO.
+// Both classes have their own concurrency limit within the total number of slots. With maxBulk < slots a live
+// frame never waits for a bulk batch to finish, it only shares the CPU with it.
+public class InferenceScheduler {
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    private static final int SLO_MIN_SAMPLES = 8;
+
+    private final int slots;
+    private final int maxInteractive;
+    private final int maxBulk;
+    private final long sloNs;
+    private final LatencyRecorder interactiveLatency = new LatencyRecorder(64);
+
+    private int runningInteractive = 0;
+    private int runningBulk = 0;
+    private int waitingInteractive = 0;
+    private long interactiveTicket = 0;
+    private long interactiveRun = 0;
+    private long interactiveDropped = 0;
+    private long bulkRun = 0;
+    private long bulkYields = 0;
+
+    public InferenceScheduler(int slots, int maxInteractive, int maxBulk, long sloMs) {
+        if (slots < 1 || maxInteractive < 1 || maxBulk < 1) {
+            throw new IllegalArgumentException("Slots and per-class limits must be at least 1");
+        }
+        this.slots = slots;
+        this.maxInteractive = Math.min(maxInteractive, slots);
+        this.maxBulk = Math.min(maxBulk, slots);
+        this.sloNs = TimeUnit.MILLISECONDS.toNanos(sloMs);
+    }
+
+    // Wait for a live frame slot, null if the frame went stale or a newer frame arrived while waiting
+    public Permit acquireInteractive() throws InterruptedException {
+        long enqueueTimeNs = System.nanoTime();
+        synchronized (this) {
+            long ticket = ++interactiveTicket;
+            waitingInteractive++;
+            notifyAll(); // Wake older waiting frames so they see they are superseded
+            try {
+                while (runningInteractive >= maxInteractive || runningInteractive + runningBulk >= slots) {
+                    long remainingNs = sloNs - (System.nanoTime() - enqueueTimeNs);
+                    if (ticket != interactiveTicket || remainingNs <= 0) {
+                        interactiveDropped++;
+                        return null;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNs);
+                }
+                runningInteractive++;
+            } finally {
+                waitingInteractive--;
+            }
+        }
+        return new Permit(Priority.INTERACTIVE, enqueueTimeNs);
+    }
+
+    // Wait for a bulk slot for one batch
+    public Permit acquireBulk() throws InterruptedException {
+        long enqueueTimeNs = System.nanoTime();
+        synchronized (this) {
+            boolean yielded = false;
+            while (true) {
+                boolean liveFirst = waitingInteractive > 0 || (runningInteractive > 0 && isMissingSlo());
+                if (!liveFirst && runningBulk < maxBulk && runningInteractive + runningBulk < slots) {
+                    break;
+                }
+                if (liveFirst && !yielded) {
+                    yielded = true;
+                    bulkYields++;
+                }
+                wait();
+            }
+            runningBulk++;
+        }
+        return new Permit(Priority.BULK, enqueueTimeNs);
+    }
+
+    // p90 of recent live frame latency, from request to release, is above the SLO
+    public synchronized boolean isMissingSlo() {
+        return interactiveLatency.count() >= SLO_MIN_SAMPLES && interactiveLatency.percentileMs(0.9) * 1e6 > sloNs;
+    }
+
+    public synchronized long getInteractiveDropped() {
+        return interactiveDropped;
+    }
+
+    public synchronized long getBulkYields() {
+        return bulkYields;
+    }
+
+    // Live frames currently waiting for a slot
+    synchronized int getWaitingInteractive() {
+        return waitingInteractive;
+    }
+
+    private synchronized void release(Permit permit) {
+        if (permit.priority == Priority.INTERACTIVE) {
+            runningInteractive--;
+            interactiveRun++;
+            interactiveLatency.record(System.nanoTime() - permit.enqueueTimeNs);
+        } else {
+            runningBulk--;
+            bulkRun++;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT,
+                "interactive run=%d dropped=%d p90=%.1fms slo=%dms, bulk run=%d yields=%d",
+                interactiveRun, interactiveDropped, interactiveLatency.percentileMs(0.9),
+                TimeUnit.NANOSECONDS.toMillis(sloNs), bulkRun, bulkYields);
+    }
+
+    // Held while running the model, close exactly once
+    public class Permit implements AutoCloseable {
+        private final Priority priority;
+        private final long enqueueTimeNs;
+        private boolean closed = false;
+
+        private Permit(Priority priority, long enqueueTimeNs) {
+            this.priority = priority;
+            this.enqueueTimeNs = enqueueTimeNs;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(this);
+            }
+        }
+    }
+}
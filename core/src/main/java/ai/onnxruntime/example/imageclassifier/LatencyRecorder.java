@@ -0,0 +1,68 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.Arrays;
+
+// Collects latency samples in nanoseconds and reports percentiles.
+// Unbounded by default, a bounded recorder keeps only the most recent samples for long-running processes.
+public class LatencyRecorder {
+    private final int capacity;
+    private long[] samples;
+    private int count = 0;
+    private int next = 0;
+    private long total = 0;
+
+    public LatencyRecorder() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public LatencyRecorder(int capacity) {
+        this.capacity = capacity;
+        this.samples = new long[Math.min(capacity, 1024)];
+    }
+
+    public synchronized void record(long latencyNs) {
+        if (count == samples.length && count < capacity) {
+            samples = Arrays.copyOf(samples, (int) Math.min(capacity, count * 2L));
+            next = count;
+        }
+        if (count < samples.length) {
+            count++;
+        } else {
+            total -= samples[next]; // Window is full, drop the oldest sample
+        }
+        samples[next] = latencyNs;
+        next = (next + 1) % samples.length;
+        total += latencyNs;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized double meanMs() {
+        return count == 0 ? 0 : total / 1e6 / count;
+    }
+
+    // Percentile in milliseconds, p in [0, 1]
+    public synchronized double percentileMs(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / 1e6;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        next = 0;
+        total = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT, "n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                count(), meanMs(), percentileMs(0.5), percentileMs(0.9), percentileMs(0.99), percentileMs(1.0));
+    }
+}
@@ -0,0 +1,12 @@
+package ai.onnxruntime.example.imageclassifier;
+
+// Turns the raw output of a model into a Result.
+// Heads work on plain arrays so they can be benchmarked without a session. Implementations may reuse internal
+// buffers between calls and are not thread-safe.
+public interface ModelHead {
+    // Input normalization the model was trained with
+    Normalization getInputNormalization();
+
+    // output: value of the first output tensor of a single-image run, inputSize: side of the square input
+    void decode(Object output, int inputSize, Result result);
+}
@@ -0,0 +1,95 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import ai.onnxruntime.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Chooses the head for a model.
+// Models can declare it in their custom metadata:
+//   nsfw.head           "detector" or "classifier"
+//   nsfw.softmax        "false" if the classifier already outputs probabilities
+//   nsfw.normalization  "unit" ([0, 1]) or "imagenet", defaults to unit for detectors and imagenet for classifiers
+//   nsfw.topk           number of classes a classifier reports, 3 by default
+//   nsfw.unsafe_classes comma-separated unsafe class indices of a classifier, required to use it as cascade gate
+//   nsfw.labels         comma-separated class names of a classifier, shown instead of the class indices
+// Without metadata the head follows the output rank: [1, features, anchors] detector or [1, classes] classifier.
+public class ModelHeads {
+    public static final String HEAD_KEY = "nsfw.head";
+    public static final String SOFTMAX_KEY = "nsfw.softmax";
+    public static final String NORMALIZATION_KEY = "nsfw.normalization";
+    public static final String TOPK_KEY = "nsfw.topk";
+    public static final String UNSAFE_CLASSES_KEY = "nsfw.unsafe_classes";
+    public static final String LABELS_KEY = "nsfw.labels";
+    private static final int DEFAULT_TOPK = 3;
+
+    public static ModelHead forSession(OrtSession session) throws OrtException {
+        Map<String, String> metadata = session.getMetadata().getCustomMetadata();
+        String head = metadata.get(HEAD_KEY);
+        if (head == null) {
+            NodeInfo output = session.getOutputInfo().values().iterator().next();
+            boolean detector = output.getInfo() instanceof TensorInfo
+                    && ((TensorInfo) output.getInfo()).getShape().length == 3;
+            head = detector ? "detector" : "classifier";
+        }
+        switch (head) {
+            case "detector":
+                return new YoloDetectorHead();
+            case "classifier":
+                String normalization = metadata.get(NORMALIZATION_KEY);
+                String topK = metadata.get(TOPK_KEY);
+                return new ClassifierHead(
+                        topK != null ? Integer.parseInt(topK) : DEFAULT_TOPK,
+                        !"false".equals(metadata.get(SOFTMAX_KEY)),
+                        "unit".equals(normalization) ? Normalization.UNIT : Normalization.IMAGENET
+                );
+            default:
+                throw new IllegalArgumentException("Unknown model head " + head);
+        }
+    }
+
+    // Unsafe class indices declared by the model, null if it declares none
+    public static int[] unsafeClasses(OrtSession session) throws OrtException {
+        String value = session.getMetadata().getCustomMetadata().get(UNSAFE_CLASSES_KEY);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        int[] classes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            classes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return classes;
+    }
+
+    // Class names declared by a classifier, null if it declares none
+    public static List<String> labels(OrtSession session) throws OrtException {
+        String value = session.getMetadata().getCustomMetadata().get(LABELS_KEY);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        List<String> labels = new ArrayList<>();
+        for (String label : value.split(",")) {
+            labels.add(label.trim());
+        }
+        return labels;
+    }
+
+    // Side of the square [1, 3, size, size] model input, 0 if the spatial axes are dynamic
+    public static int fixedInputSize(OrtSession session) throws OrtException {
+        NodeInfo info = session.getInputInfo().values().iterator().next();
+        if (!(info.getInfo() instanceof TensorInfo)) {
+            return 0;
+        }
+        long[] shape = ((TensorInfo) info.getInfo()).getShape();
+        if (shape.length != 4 || shape[2] < 0 || shape[3] < 0) {
+            return 0;
+        }
+        if (shape[2] != shape[3]) {
+            throw new IllegalArgumentException("Model input must be square: " + Arrays.toString(shape));
+        }
+        return (int) shape[2];
+    }
+}
@@ -0,0 +1,41 @@
+package ai.onnxruntime.example.imageclassifier;
+
+// Per-channel (value / 255 - mean) / std normalization with precomputed 256-entry lookup tables.
+// Table entries are computed with the same float operations as the direct formula, so results are identical.
+public class Normalization {
+    // [0, 1] range expected by the NudeNet model
+    public static final Normalization UNIT = new Normalization(new float[]{0f, 0f, 0f}, new float[]{1f, 1f, 1f});
+    // ImageNet mean/std used by the classifier models
+    public static final Normalization IMAGENET = new Normalization(
+            new float[]{0.485f, 0.456f, 0.406f}, new float[]{0.229f, 0.224f, 0.225f});
+
+    final float[] mean;
+    final float[] std;
+    final float[][] lut = new float[3][256];
+
+    // mean and std in R, G, B order
+    public Normalization(float[] mean, float[] std) {
+        if (mean.length != 3 || std.length != 3) {
+            throw new IllegalArgumentException("mean and std need one value per RGB channel");
+        }
+        this.mean = mean.clone();
+        this.std = std.clone();
+        for (int c = 0; c < 3; c++) {
+            for (int v = 0; v < 256; v++) {
+                lut[c][v] = (v / 255f - mean[c]) / std[c];
+            }
+        }
+    }
+
+    public float getMean(int channel) {
+        return mean[channel];
+    }
+
+    public float getStd(int channel) {
+        return std[channel];
+    }
+
+    public float[] getLut(int channel) {
+        return lut[channel];
+    }
+}
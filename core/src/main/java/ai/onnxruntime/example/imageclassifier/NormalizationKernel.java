@@ -0,0 +1,7 @@
+package ai.onnxruntime.example.imageclassifier;
+
+// Writes ARGB pixels [from, to) into the R, G and B planes of an NCHW float array.
+// Implementations must produce exactly the same values as Normalization's lookup tables.
+public interface NormalizationKernel {
+    void normalize(int[] pixels, int from, int to, int planeSize, Normalization normalization, float[] out);
+}
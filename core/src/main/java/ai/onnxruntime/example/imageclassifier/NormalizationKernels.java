@@ -0,0 +1,60 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.nio.FloatBuffer;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+// Selects the normalization kernel at runtime.
+// A faster kernel can be registered through ServiceLoader (the JVM tools ship a Vector API one). If none is
+// registered, or it cannot be loaded on this runtime, the scalar lookup-table kernel is used.
+public class NormalizationKernels {
+    public static final NormalizationKernel SCALAR = new ScalarKernel();
+
+    private static NormalizationKernel selected;
+
+    public static synchronized NormalizationKernel get() {
+        if (selected == null) {
+            selected = load();
+        }
+        return selected;
+    }
+
+    private static NormalizationKernel load() {
+        try {
+            Iterator<NormalizationKernel> kernels = ServiceLoader.load(NormalizationKernel.class).iterator();
+            if (kernels.hasNext()) {
+                return kernels.next();
+            }
+        } catch (Throwable e) {
+            // Registered kernel needs a runtime feature that is missing, e.g. the jdk.incubator.vector module
+        }
+        return SCALAR;
+    }
+
+    // Normalize a whole image into a float buffer with a single bulk put of the three channel planes
+    public static void normalize(int[] pixels, int count, Normalization normalization, FloatBuffer out) {
+        float[] planes = new float[3 * count];
+        get().normalize(pixels, 0, count, count, normalization, planes);
+        out.put(planes, 0, planes.length);
+    }
+
+    // Lookup-table kernel, one sequential pass per channel plane
+    private static class ScalarKernel implements NormalizationKernel {
+        @Override
+        public void normalize(int[] pixels, int from, int to, int planeSize, Normalization normalization,
+                              float[] out) {
+            float[] r = normalization.lut[0];
+            float[] g = normalization.lut[1];
+            float[] b = normalization.lut[2];
+            for (int idx = from; idx < to; idx++) {
+                out[idx] = r[pixels[idx] >> 16 & 0xFF];
+            }
+            for (int idx = from, offset = planeSize; idx < to; idx++) {
+                out[idx + offset] = g[pixels[idx] >> 8 & 0xFF];
+            }
+            for (int idx = from, offset = planeSize * 2; idx < to; idx++) {
+                out[idx + offset] = b[pixels[idx] & 0xFF];
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import ai.onnxruntime.*;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// The NudeNet frame pipeline: conversion, preprocessing, inference and postprocessing.
+// Free of Android dependencies so the camera analyzer, the replay driver and other JVM tools run the same stages.
+// Not thread-safe, use one pipeline per analysis thread.
+public class NudeNetPipeline {
+    private final OrtSession ortSession;
+    private final CascadeGate cascadeGate;
+    private final ResolutionController resolutionController;
+    private ModelHead modelHead;
+    private int fixedInputSize = -1; // Read from the model on first use, 0 for dynamic spatial axes
+
+    public NudeNetPipeline(OrtSession ortSession) {
+        this(ortSession, null, null);
+    }
+
+    // cascadeGate may be null, in which case the full detector runs on every frame
+    // resolutionController may be null, in which case a model with dynamic spatial axes runs at 320x320.
+    // A model with a fixed input size, e.g. a 224x224 classifier, always runs at that size.
+    public NudeNetPipeline(OrtSession ortSession, CascadeGate cascadeGate, ResolutionController resolutionController) {
+        this.ortSession = ortSession;
+        this.cascadeGate = cascadeGate;
+        this.resolutionController = resolutionController;
+    }
+
+    public OrtSession getSession() {
+        return ortSession;
+    }
+
+    public CascadeGate getCascadeGate() {
+        return cascadeGate;
+    }
+
+    // Head used to decode the model output, chosen from the model metadata on first use
+    public ModelHead getModelHead() throws OrtException {
+        if (modelHead == null) {
+            modelHead = ModelHeads.forSession(ortSession);
+        }
+        return modelHead;
+    }
+
+    // Side of the square model input for the next frame: the model's own if fixed, otherwise the controller's
+    public int getInputSize() throws OrtException {
+        if (fixedInputSize < 0) {
+            fixedInputSize = ModelHeads.fixedInputSize(ortSession);
+        }
+        if (fixedInputSize > 0) {
+            return fixedInputSize;
+        }
+        return resolutionController != null ? resolutionController.getInputSize() : DetectionDecoder.REFERENCE_SIZE;
+    }
+
+    // Run the gate and the detector once on a synthetic black input, so the first camera frame does not pay for
+    // ORT's lazy initialization. Gate statistics and the resolution controller are left untouched.
+    public void warmUp() throws OrtException {
+        int inputSize = getInputSize();
+        int[] pixels = new int[inputSize * inputSize];
+        Arrays.fill(pixels, 0xFF000000);
+        if (cascadeGate != null) {
+            scoreGate(cascadeGate, pixels, inputSize);
+        }
+        detect(ortSession, getModelHead(), pixels, inputSize, new Result());
+    }
+
+    // Run a camera frame through every stage
+    public Result process(YuvFrame frame) throws OrtException {
+        long frameStartTime = System.nanoTime();
+        int inputSize = getInputSize();
+        // For high-resolution frames, sample down while converting to save memory
+        int sampleSize = ImageOps.sampleSize(frame.width, frame.height);
+        int[] sampled = ImageOps.yPlaneToArgb(frame, sampleSize);
+
+        // Resize to the model input size, then apply the sensor rotation
+        int[] scaled = ImageOps.scale(sampled, frame.width / sampleSize, frame.height / sampleSize,
+                inputSize, inputSize);
+        int[] pixels = ImageOps.rotate(scaled, inputSize, inputSize, frame.rotationDegrees);
+        Result result = process(pixels, inputSize);
+
+        // Only frames that ran the detector tell what this resolution costs, gated frames only paid for the gate
+        if (resolutionController != null && !result.gated) {
+            resolutionController.record(inputSize, (System.nanoTime() - frameStartTime) / 1000000);
+        }
+        return result;
+    }
+
+    // Run the gate and the detector on a square ARGB model input
+    public Result process(int[] pixels, int inputSize) throws OrtException {
+        Result result = new Result();
+        result.inputSize = inputSize;
+
+        CascadeGate.Decision decision = CascadeGate.Decision.RUN;
+        float gateScore = 0f;
+        if (cascadeGate != null) {
+            long gateStartTime = System.nanoTime();
+            gateScore = scoreGate(cascadeGate, pixels, inputSize);
+            decision = cascadeGate.decide(gateScore);
+            result.processTimeMs = (System.nanoTime() - gateStartTime) / 1000000;
+            result.gateScore = gateScore;
+        }
+
+        if (decision == CascadeGate.Decision.SKIP) {
+            result.gated = true;
+        } else {
+            detect(ortSession, getModelHead(), pixels, inputSize, result);
+            if (decision == CascadeGate.Decision.AUDIT) {
+                cascadeGate.recordAudit(gateScore, !result.detections.isEmpty());
+            }
+        }
+        return result;
+    }
+
+    // Run the reduced-size gate on a square model input
+    public static float scoreGate(CascadeGate gate, int[] pixels, int inputSize) throws OrtException {
+        int size = gate.getInputSize();
+        int[] gatePixels = ImageOps.scale(pixels, inputSize, inputSize, size, size);
+        float[] imgData = new float[3 * size * size];
+        ParallelKernels.normalizeToNchw(gatePixels, size, size, gate.getInputNormalization(), imgData);
+        return gate.score(FloatBuffer.wrap(imgData));
+    }
+
+    // Run the full NudeNet detector on a square model input and store its detections in result.
+    // Sizes other than 320 need a model with dynamic spatial axes.
+    public static void detect(OrtSession ortSession, int[] pixels, int inputSize, Result result) throws OrtException {
+        detect(ortSession, new YoloDetectorHead(), pixels, inputSize, result);
+    }
+
+    // Same as above with the output decoded by the given head
+    public static void detect(OrtSession ortSession, ModelHead head, int[] pixels, int inputSize, Result result)
+            throws OrtException {
+        float[] imgData = new float[3 * inputSize * inputSize];
+        ParallelKernels.normalizeToNchw(pixels, inputSize, inputSize, head.getInputNormalization(), imgData);
+        String inputName = ortSession.getInputNames().iterator().next();
+        long[] shape = {1, 3, inputSize, inputSize}; // [batch, channels, height, width]
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, FloatBuffer.wrap(imgData), shape)) {
+            long startTime = System.nanoTime();
+            try (OrtSession.Result output = ortSession.run(Collections.singletonMap(inputName, tensor))) {
+                result.processTimeMs += (System.nanoTime() - startTime) / 1000000;
+                head.decode(output.get(0).getValue(), inputSize, result);
+            }
+        }
+    }
+
+    public static void setDetections(Result result, List<DetectionResult> detections) {
+        result.detections = detections;
+
+        // For compatibility, set some basic values
+        List<Integer> detectedIndices = new ArrayList<>();
+        List<Float> detectedScores = new ArrayList<>();
+        for (DetectionResult detection : detections) {
+            detectedIndices.add(detection.classIndex);
+            detectedScores.add(detection.confidence);
+        }
+        result.detectedIndices = detectedIndices;
+        result.detectedScore = detectedScores;
+    }
+}
@@ -0,0 +1,50 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import ai.onnxruntime.*;
+
+import java.io.File;
+import java.io.IOException;
+
+// Profiles a bounded number of runs of a session created with ORT's built-in profiler enabled.
+// Call onRun after every inference; once the run budget is spent profiling stops and the trace is turned
+// into a ProfileReport. Profiling adds overhead, so the app should only enable it for measurement builds.
+// The trace covers every run of the session since it was created, so it should only be used for the runs being
+// measured; runs made before profiling starts, such as a warm-up, are left out with skipRuns.
+public class OrtProfiler {
+    private final OrtSession session;
+    private final int skipRuns;
+    private int remainingRuns;
+    private ProfileReport report;
+
+    public OrtProfiler(OrtSession session, int runs) {
+        this(session, runs, 0);
+    }
+
+    public OrtProfiler(OrtSession session, int runs, int skipRuns) {
+        this.session = session;
+        this.remainingRuns = runs;
+        this.skipRuns = skipRuns;
+    }
+
+    // Enable profiling on session options before the session is created, traces are written as <prefix>_<time>.json
+    public static void enable(OrtSession.SessionOptions options, File outputPrefix) throws OrtException {
+        options.enableProfiling(outputPrefix.getAbsolutePath());
+    }
+
+    // Returns the report after the last profiled run, null before and after that
+    public synchronized ProfileReport onRun() throws OrtException, IOException {
+        if (remainingRuns <= 0 || --remainingRuns > 0) {
+            return null;
+        }
+        report = ProfileReport.parse(new File(session.endProfiling()), skipRuns);
+        return report;
+    }
+
+    public synchronized boolean isProfiling() {
+        return remainingRuns > 0;
+    }
+
+    public synchronized ProfileReport getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,146 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Row-band parallel versions of the per-frame CPU kernels.
+// Work is split over a shared bounded ForkJoinPool only above a size threshold, small inputs run serially on
+// the calling thread. Every band runs the same code as the serial path, so results are identical.
+// Only millisecond-scale passes are split: full camera frames (1280x720 Y plane to ARGB costs ~1.2ms serially)
+// and inputs from 512x512 up. Model inputs up to 416x416 (~130us normalize at 320) and their 2100 / 3549 anchors
+// stay serial, as the fork/join wake-up on a phone can cost more than it saves and the gain at those sizes has
+// not been measured on a multi-core device.
+public class ParallelKernels {
+    public static final int MAX_PARALLELISM = 4;
+    public static final int MIN_PARALLEL_PIXELS = 512 * 512; // Below this the fork overhead outweighs the gain
+    public static final int MIN_PARALLEL_ANCHORS = 8400; // 640x640 input
+    private static final int MIN_BAND_PIXELS = 64 * 1024;
+    private static final int MIN_BAND_ANCHORS = 2100;
+
+    private static ForkJoinPool pool;
+
+    public static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLELISM)));
+        }
+        return pool;
+    }
+
+    // Rows [fromRow, toRow) of a row-independent kernel, bands must write disjoint output
+    public interface RowKernel {
+        void run(int fromRow, int toRow);
+    }
+
+    // Run a kernel over all rows, in bands on the pool when rows * rowPixels reaches MIN_PARALLEL_PIXELS
+    public static void forRows(int rows, int rowPixels, RowKernel kernel) {
+        if ((long) rows * rowPixels < MIN_PARALLEL_PIXELS || getPool().getParallelism() == 1) {
+            kernel.run(0, rows);
+        } else {
+            forRowBands(rows, Math.max(1, MIN_BAND_PIXELS / Math.max(1, rowPixels)), kernel);
+        }
+    }
+
+    // Banded path regardless of size and core count, also used by the tests
+    static void forRowBands(int rows, int bandRows, RowKernel kernel) {
+        getPool().invoke(new RowTask(kernel, 0, rows, bandRows));
+    }
+
+    // Scatter ARGB pixels into an NCHW [1, 3, height, width] float array normalized to [0, 1]
+    public static void normalizeToNchw(int[] pixels, int width, int height, float[] out) {
+        normalizeToNchw(pixels, width, height, Normalization.UNIT, out);
+    }
+
+    public static void normalizeToNchw(int[] pixels, int width, int height, Normalization normalization,
+                                       float[] out) {
+        NormalizationKernel kernel = NormalizationKernels.get();
+        forRows(height, width, (fromRow, toRow) -> normalizeRows(kernel, pixels, width, height, fromRow, toRow,
+                normalization, out));
+    }
+
+    static void normalizeRows(NormalizationKernel kernel, int[] pixels, int width, int height, int fromRow,
+                              int toRow, Normalization normalization, float[] out) {
+        kernel.normalize(pixels, fromRow * width, toRow * width, width * height, normalization, out);
+    }
+
+    // Decode anchors in bands and concatenate the band results in anchor order
+    public static List<DetectionResult> decode(float[][] outputArray, float threshold, float scale, int numClasses) {
+        int numDetections = outputArray.length > 0 ? outputArray[0].length : 0;
+        if (numDetections < MIN_PARALLEL_ANCHORS || getPool().getParallelism() == 1) {
+            List<DetectionResult> detections = new ArrayList<>();
+            DetectionDecoder.decodeRange(outputArray, threshold, scale, numClasses, 0, numDetections, detections);
+            return detections;
+        }
+        return decodeBands(outputArray, threshold, scale, numClasses, MIN_BAND_ANCHORS);
+    }
+
+    static List<DetectionResult> decodeBands(float[][] outputArray, float threshold, float scale, int numClasses,
+                                             int bandAnchors) {
+        int numDetections = outputArray.length > 0 ? outputArray[0].length : 0;
+        return getPool().invoke(new DecodeTask(outputArray, threshold, scale, numClasses, bandAnchors, 0,
+                numDetections));
+    }
+
+    private static class RowTask extends RecursiveAction {
+        private final RowKernel kernel;
+        private final int fromRow;
+        private final int toRow;
+        private final int bandRows;
+
+        RowTask(RowKernel kernel, int fromRow, int toRow, int bandRows) {
+            this.kernel = kernel;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= bandRows) {
+                kernel.run(fromRow, toRow);
+                return;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new RowTask(kernel, fromRow, mid, bandRows), new RowTask(kernel, mid, toRow, bandRows));
+        }
+    }
+
+    private static class DecodeTask extends RecursiveTask<List<DetectionResult>> {
+        private final float[][] outputArray;
+        private final float threshold;
+        private final float scale;
+        private final int numClasses;
+        private final int bandAnchors;
+        private final int from;
+        private final int to;
+
+        DecodeTask(float[][] outputArray, float threshold, float scale, int numClasses, int bandAnchors,
+                   int from, int to) {
+            this.outputArray = outputArray;
+            this.threshold = threshold;
+            this.scale = scale;
+            this.numClasses = numClasses;
+            this.bandAnchors = bandAnchors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<DetectionResult> compute() {
+            if (to - from <= bandAnchors) {
+                List<DetectionResult> detections = new ArrayList<>();
+                DetectionDecoder.decodeRange(outputArray, threshold, scale, numClasses, from, to, detections);
+                return detections;
+            }
+            int mid = (from + to) >>> 1;
+            DecodeTask right = new DecodeTask(outputArray, threshold, scale, numClasses, bandAnchors, mid, to);
+            right.fork();
+            List<DetectionResult> detections =
+                    new DecodeTask(outputArray, threshold, scale, numClasses, bandAnchors, from, mid).compute();
+            detections.addAll(right.join());
+            return detections;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Per-operator latency report built from an ORT profiling trace (Chrome trace JSON written by enableProfiling).
+// Node kernel times are aggregated per node and per operator type, with their share of the total model run time.
+// The CSV form is stable across runs and execution providers so reports can be diffed.
+public class ProfileReport {
+    private static final String KERNEL_TIME_SUFFIX = "_kernel_time";
+
+    public final int runs;
+    public final long totalRunUs;
+    public final List<Entry> byNode;
+    public final List<Entry> byOpType;
+
+    private ProfileReport(int runs, long totalRunUs, List<Entry> byNode, List<Entry> byOpType) {
+        this.runs = runs;
+        this.totalRunUs = totalRunUs;
+        this.byNode = byNode;
+        this.byOpType = byOpType;
+    }
+
+    public static class Entry {
+        public final String name;
+        public final String opType;
+        public final String provider;
+        public long count;
+        public long totalUs;
+
+        Entry(String name, String opType, String provider) {
+            this.name = name;
+            this.opType = opType;
+            this.provider = provider;
+        }
+
+        public double meanUs() {
+            return count == 0 ? 0 : (double) totalUs / count;
+        }
+    }
+
+    public static ProfileReport parse(File file) throws IOException {
+        return parse(file, 0);
+    }
+
+    public static ProfileReport parse(File file, int skipRuns) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return parse(reader, skipRuns);
+        }
+    }
+
+    public static ProfileReport parse(Reader reader) throws IOException {
+        return parse(reader, 0);
+    }
+
+    // skipRuns: leave out the first model runs and their nodes, e.g. a warm-up run paying for lazy initialization
+    @SuppressWarnings("unchecked")
+    public static ProfileReport parse(Reader reader, int skipRuns) throws IOException {
+        Object json = SimpleJson.parse(reader);
+        // Older ORT versions wrap the events in {"traceEvents": [...]}
+        List<Object> events = json instanceof Map
+                ? (List<Object>) ((Map<String, Object>) json).get("traceEvents") : (List<Object>) json;
+        if (events == null) {
+            throw new IOException("No trace events in profile");
+        }
+
+        // Runs are sequential, so everything before the end of the last skipped run belongs to skipped runs
+        long skipUntilUs = Long.MIN_VALUE;
+        if (skipRuns > 0) {
+            List<long[]> runWindows = new ArrayList<>();
+            for (Object item : events) {
+                Map<String, Object> event = (Map<String, Object>) item;
+                if ("Session".equals(event.get("cat")) && "model_run".equals(event.get("name"))) {
+                    runWindows.add(new long[] {number(event, "ts"), number(event, "dur")});
+                }
+            }
+            Collections.sort(runWindows, (a, b) -> Long.compare(a[0], b[0]));
+            if (!runWindows.isEmpty()) {
+                long[] last = runWindows.get(Math.min(skipRuns, runWindows.size()) - 1);
+                skipUntilUs = last[0] + last[1];
+            }
+        }
+
+        int runs = 0;
+        long totalRunUs = 0;
+        Map<String, Entry> nodes = new LinkedHashMap<>();
+        Map<String, Entry> opTypes = new LinkedHashMap<>();
+        for (Object item : events) {
+            Map<String, Object> event = (Map<String, Object>) item;
+            String category = (String) event.get("cat");
+            String name = (String) event.get("name");
+            long durationUs = number(event, "dur");
+            if (number(event, "ts") < skipUntilUs) {
+                continue;
+            }
+            if ("Session".equals(category) && "model_run".equals(name)) {
+                runs++;
+                totalRunUs += durationUs;
+            } else if ("Node".equals(category) && name != null && name.endsWith(KERNEL_TIME_SUFFIX)) {
+                Map<String, Object> args = (Map<String, Object>) event.get("args");
+                String opType = args != null && args.get("op_name") != null ? (String) args.get("op_name") : "?";
+                String provider = args != null && args.get("provider") != null ? (String) args.get("provider") : "?";
+                String node = name.substring(0, name.length() - KERNEL_TIME_SUFFIX.length());
+                add(nodes, node, node, opType, provider, durationUs);
+                add(opTypes, opType + "@" + provider, opType, opType, provider, durationUs);
+            }
+        }
+        return new ProfileReport(runs, totalRunUs, sorted(nodes), sorted(opTypes));
+    }
+
+    private static long number(Map<String, Object> event, String key) {
+        return event.get(key) instanceof Double ? ((Double) event.get(key)).longValue() : 0;
+    }
+
+    private static void add(Map<String, Entry> entries, String key, String name, String opType, String provider,
+                            long durationUs) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(name, opType, provider);
+            entries.put(key, entry);
+        }
+        entry.count++;
+        entry.totalUs += durationUs;
+    }
+
+    private static List<Entry> sorted(Map<String, Entry> entries) {
+        List<Entry> list = new ArrayList<>(entries.values());
+        Collections.sort(list, (a, b) -> Long.compare(b.totalUs, a.totalUs));
+        return list;
+    }
+
+    // Share of the total model run time spent in an entry
+    public double share(Entry entry) {
+        return totalRunUs == 0 ? 0 : (double) entry.totalUs / totalRunUs;
+    }
+
+    // Text report of the top entries by total time
+    public String format(int top) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%d runs, mean run %.2f ms%n",
+                runs, runs == 0 ? 0 : totalRunUs / 1000.0 / runs));
+        appendTable(sb, "Operator types", byOpType, top);
+        appendTable(sb, "Nodes", byNode, top);
+        return sb.toString();
+    }
+
+    private void appendTable(StringBuilder sb, String title, List<Entry> entries, int top) {
+        sb.append(title).append('\n');
+        sb.append(String.format(Locale.ROOT, "  %-40s %-8s %-24s %8s %10s %8s%n",
+                "name", "op", "provider", "calls", "mean(us)", "share"));
+        for (int i = 0; i < Math.min(top, entries.size()); i++) {
+            Entry e = entries.get(i);
+            sb.append(String.format(Locale.ROOT, "  %-40s %-8s %-24s %8d %10.1f %7.1f%%%n",
+                    e.name, e.opType, e.provider, e.count, e.meanUs(), share(e) * 100));
+        }
+    }
+
+    // kind,name,op_type,provider,calls,total_us,mean_us,share
+    public void writeCsv(PrintWriter out) {
+        out.println("kind,name,op_type,provider,calls,total_us,mean_us,share");
+        writeRows(out, "op", byOpType);
+        writeRows(out, "node", byNode);
+        out.flush();
+    }
+
+    private void writeRows(PrintWriter out, String kind, List<Entry> entries) {
+        for (Entry e : entries) {
+            out.printf(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%.2f,%.5f%n",
+                    kind, e.name, e.opType, e.provider, e.count, e.totalUs, e.meanUs(), share(e));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+// Pixelates or blurs detected regions in place, on YUV_420 camera planes or packed ARGB pixels of stored images.
+// Boxes are mapped from the 320x320 model input back to source coordinates: for camera frames undoing the stretch
+// and the rotation applied by the pipeline, for stored images undoing the letterbox applied at decode time
+// (see ImageOps.letterboxExtent). The blur is a separable running-sum box filter whose cost does not depend on the
+// radius, and both modes only need scratch space the size of a region, never a full-frame copy.
+// Not thread-safe, scratch buffers are reused between calls.
+public class Redactor {
+    public enum Mode {
+        PIXELATE,   // Replace every block with its average
+        BLUR        // Box blur
+    }
+
+    private final Mode mode;
+    private final int strength;
+    private int[] region = new int[0];
+    private int[] line = new int[0];
+
+    // strength: block size for PIXELATE or blur radius for BLUR, in full-resolution pixels
+    public Redactor(Mode mode, int strength) {
+        if (strength < 1) {
+            throw new IllegalArgumentException("Redaction strength must be at least 1");
+        }
+        this.mode = mode;
+        this.strength = strength;
+    }
+
+    // Redact a frame whose detections came from the pipeline, plane buffers must be writable.
+    // Chroma planes are subsampled by two in both directions.
+    public void redact(YuvFrame frame, List<DetectionResult> detections) {
+        for (YuvFrame.Plane plane : frame.planes) {
+            if (plane.buffer.isReadOnly()) {
+                throw new IllegalArgumentException("Frame planes are read-only");
+            }
+        }
+        int[] rect = new int[4];
+        for (DetectionResult detection : detections) {
+            toSourceRect(detection, frame.width, frame.height, frame.rotationDegrees, rect);
+            for (int p = 0; p < frame.planes.length; p++) {
+                int shift = p == 0 ? 0 : 1;
+                int planeWidth = (frame.width + shift) >> shift;
+                int planeHeight = (frame.height + shift) >> shift;
+                int left = rect[0] >> shift;
+                int top = rect[1] >> shift;
+                int right = Math.min(planeWidth, (rect[2] + shift) >> shift);
+                int bottom = Math.min(planeHeight, (rect[3] + shift) >> shift);
+                if (right > left && bottom > top) {
+                    redactPlane(frame.planes[p], left, top, right, bottom, Math.max(1, strength >> shift));
+                }
+            }
+        }
+    }
+
+    // Redact packed ARGB pixels of a stored image whose detections came from its letterboxed model input
+    public void redact(int[] argb, int width, int height, List<DetectionResult> detections) {
+        int[] rect = new int[4];
+        for (DetectionResult detection : detections) {
+            toLetterboxedSourceRect(detection, width, height, rect);
+            if (rect[2] > rect[0] && rect[3] > rect[1]) {
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    redactArgbChannel(argb, width, rect[0], rect[1], rect[2], rect[3], shift);
+                }
+            }
+        }
+    }
+
+    // Map a detection box (NudeNet center x/y, width, height in 320 reference pixels of the rotated model input)
+    // to [left, top, right, bottom] in source pixels, clipped to the source
+    public static void toSourceRect(DetectionResult detection, int sourceWidth, int sourceHeight,
+                                    int rotationDegrees, int[] rect) {
+        float size = DetectionDecoder.REFERENCE_SIZE;
+        float u0 = detection.x - detection.width / 2;
+        float v0 = detection.y - detection.height / 2;
+        float u1 = detection.x + detection.width / 2;
+        float v1 = detection.y + detection.height / 2;
+
+        // Undo the clockwise rotation, giving coordinates in the unrotated model input
+        float x0, y0, x1, y1;
+        switch (((rotationDegrees / 90) % 4 + 4) % 4) {
+            case 1: x0 = v0; x1 = v1; y0 = size - u1; y1 = size - u0; break;
+            case 2: x0 = size - u1; x1 = size - u0; y0 = size - v1; y1 = size - v0; break;
+            case 3: x0 = size - v1; x1 = size - v0; y0 = u0; y1 = u1; break;
+            default: x0 = u0; x1 = u1; y0 = v0; y1 = v1; break;
+        }
+
+        toRect(x0, y0, x1, y1, sourceWidth / size, sourceHeight / size, sourceWidth, sourceHeight, rect);
+    }
+
+    // Same for a stored image letterboxed top-left into the model input: one scale for both axes, no rotation
+    public static void toLetterboxedSourceRect(DetectionResult detection, int sourceWidth, int sourceHeight,
+                                               int[] rect) {
+        float scale = (float) Math.max(sourceWidth, sourceHeight) / DetectionDecoder.REFERENCE_SIZE;
+        toRect(detection.x - detection.width / 2, detection.y - detection.height / 2,
+                detection.x + detection.width / 2, detection.y + detection.height / 2,
+                scale, scale, sourceWidth, sourceHeight, rect);
+    }
+
+    private static void toRect(float x0, float y0, float x1, float y1, float scaleX, float scaleY,
+                               int sourceWidth, int sourceHeight, int[] rect) {
+        rect[0] = clamp((int) Math.floor(x0 * scaleX), sourceWidth);
+        rect[1] = clamp((int) Math.floor(y0 * scaleY), sourceHeight);
+        rect[2] = clamp((int) Math.ceil(x1 * scaleX), sourceWidth);
+        rect[3] = clamp((int) Math.ceil(y1 * scaleY), sourceHeight);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    private void redactPlane(YuvFrame.Plane plane, int left, int top, int right, int bottom, int planeStrength) {
+        int width = right - left;
+        int height = bottom - top;
+        int[] values = regionBuffer(width * height);
+        ByteBuffer buffer = plane.buffer;
+        for (int y = 0; y < height; y++) {
+            int index = (top + y) * plane.rowStride + left * plane.pixelStride;
+            for (int x = 0; x < width; x++, index += plane.pixelStride) {
+                values[y * width + x] = buffer.get(index) & 0xFF;
+            }
+        }
+        filter(values, width, height, planeStrength);
+        for (int y = 0; y < height; y++) {
+            int index = (top + y) * plane.rowStride + left * plane.pixelStride;
+            for (int x = 0; x < width; x++, index += plane.pixelStride) {
+                buffer.put(index, (byte) values[y * width + x]);
+            }
+        }
+    }
+
+    private void redactArgbChannel(int[] argb, int stride, int left, int top, int right, int bottom, int shift) {
+        int width = right - left;
+        int height = bottom - top;
+        int[] values = regionBuffer(width * height);
+        for (int y = 0; y < height; y++) {
+            int index = (top + y) * stride + left;
+            for (int x = 0; x < width; x++) {
+                values[y * width + x] = argb[index + x] >> shift & 0xFF;
+            }
+        }
+        filter(values, width, height, strength);
+        int mask = ~(0xFF << shift);
+        for (int y = 0; y < height; y++) {
+            int index = (top + y) * stride + left;
+            for (int x = 0; x < width; x++) {
+                argb[index + x] = argb[index + x] & mask | values[y * width + x] << shift;
+            }
+        }
+    }
+
+    private int[] regionBuffer(int size) {
+        if (region.length < size) {
+            region = new int[size];
+        }
+        return region;
+    }
+
+    private void filter(int[] values, int width, int height, int planeStrength) {
+        if (mode == Mode.PIXELATE) {
+            pixelate(values, width, height, planeStrength);
+        } else {
+            if (line.length < Math.max(width, height)) {
+                line = new int[Math.max(width, height)];
+            }
+            // Horizontal then vertical pass
+            for (int y = 0; y < height; y++) {
+                boxBlur(values, y * width, 1, width, planeStrength, line);
+            }
+            for (int x = 0; x < width; x++) {
+                boxBlur(values, x, width, height, planeStrength, line);
+            }
+        }
+    }
+
+    // Running-sum box blur of n values starting at offset with the given step, edges clamped
+    static void boxBlur(int[] values, int offset, int step, int n, int radius, int[] line) {
+        for (int i = 0; i < n; i++) {
+            line[i] = values[offset + i * step];
+        }
+        int window = 2 * radius + 1;
+        int last = n - 1;
+        int sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            sum += line[Math.max(0, Math.min(last, i))];
+        }
+        for (int i = 0; i < n; i++) {
+            values[offset + i * step] = (sum + window / 2) / window;
+            sum += line[Math.min(last, i + radius + 1)] - line[Math.max(0, i - radius)];
+        }
+    }
+
+    static void pixelate(int[] values, int width, int height, int block) {
+        for (int by = 0; by < height; by += block) {
+            int blockHeight = Math.min(block, height - by);
+            for (int bx = 0; bx < width; bx += block) {
+                int blockWidth = Math.min(block, width - bx);
+                int sum = 0;
+                for (int y = by; y < by + blockHeight; y++) {
+                    for (int x = bx; x < bx + blockWidth; x++) {
+                        sum += values[y * width + x];
+                    }
+                }
+                int count = blockWidth * blockHeight;
+                int average = (sum + count / 2) / count;
+                for (int y = by; y < by + blockHeight; y++) {
+                    for (int x = bx; x < bx + blockWidth; x++) {
+                        values[y * width + x] = average;
+                    }
+                }
+            }
+        }
+    }
+}
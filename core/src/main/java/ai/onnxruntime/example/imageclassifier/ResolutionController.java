@@ -0,0 +1,83 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.Arrays;
+
+// Picks the model input resolution for each frame from a target latency.
+// Keeps a short window of recent frame latencies at the current resolution. When their tail latency exceeds
+// the budget it steps down one resolution, and it steps up when the next resolution, estimated by scaling
+// the tail latency with the pixel count, still fits. Only usable with models that have dynamic spatial axes.
+public class ResolutionController {
+    public static final int[] DEFAULT_SIZES = {224, 256, 320, 416};
+    private static final int WINDOW = 16;
+    private static final float PERCENTILE = 0.9f;
+    private static final int MIN_SAMPLES = 8; // Samples needed at a resolution before moving again
+
+    private final int[] sizes;
+    private final long targetLatencyMs;
+    private final long[] samples = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int sampleCount = 0;
+    private int current;
+
+    public ResolutionController(long targetLatencyMs) {
+        this(DEFAULT_SIZES, DetectionDecoder.REFERENCE_SIZE, targetLatencyMs);
+    }
+
+    // sizes must be multiples of the largest detector stride
+    public ResolutionController(int[] sizes, int initialSize, long targetLatencyMs) {
+        this.sizes = sizes.clone();
+        Arrays.sort(this.sizes);
+        for (int size : this.sizes) {
+            if (size <= 0 || size % DetectionDecoder.MAX_STRIDE != 0) {
+                throw new IllegalArgumentException("Input size must be a multiple of "
+                        + DetectionDecoder.MAX_STRIDE + ": " + size);
+            }
+        }
+        this.targetLatencyMs = targetLatencyMs;
+        int initial = Arrays.binarySearch(this.sizes, initialSize);
+        this.current = initial >= 0 ? initial : this.sizes.length - 1;
+    }
+
+    public synchronized int getInputSize() {
+        return sizes[current];
+    }
+
+    public long getTargetLatencyMs() {
+        return targetLatencyMs;
+    }
+
+    // Record the end-to-end latency of a frame processed at the given size and pick the size for the next frame
+    public synchronized int record(int size, long latencyMs) {
+        if (size != sizes[current]) {
+            return sizes[current]; // Frame started before the last switch
+        }
+        samples[sampleCount % WINDOW] = latencyMs;
+        sampleCount++;
+        if (sampleCount < MIN_SAMPLES) {
+            return sizes[current];
+        }
+
+        long tail = tailLatency();
+        if (tail > targetLatencyMs && current > 0) {
+            switchTo(current - 1);
+        } else if (current + 1 < sizes.length) {
+            double ratio = (double) sizes[current + 1] * sizes[current + 1] / ((double) sizes[current] * sizes[current]);
+            if (tail * ratio <= targetLatencyMs) {
+                switchTo(current + 1);
+            }
+        }
+        return sizes[current];
+    }
+
+    private void switchTo(int level) {
+        current = level;
+        sampleCount = 0;
+    }
+
+    private long tailLatency() {
+        int n = Math.min(sampleCount, WINDOW);
+        System.arraycopy(samples, 0, sorted, 0, n);
+        Arrays.sort(sorted, 0, n);
+        return sorted[Math.min(n - 1, (int) (n * PERCENTILE))];
+    }
+}
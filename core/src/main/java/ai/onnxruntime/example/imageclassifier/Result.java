@@ -7,5 +7,8 @@ public class Result {
     public List<Integer> detectedIndices = new ArrayList<>();
     public List<Float> detectedScore = new ArrayList<>();
     public long processTimeMs = 0;
+    public int inputSize = DetectionDecoder.REFERENCE_SIZE; // Model input resolution used for this frame
     public List<DetectionResult> detections = new ArrayList<>();
+    public boolean gated = false; // Cascade gate skipped the full detector for this frame
+    public float gateScore = 0f;
 }
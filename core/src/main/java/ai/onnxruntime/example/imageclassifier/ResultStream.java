@@ -0,0 +1,132 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Fans results out from the analysis thread to any number of subscribers, each on its own executor.
+// The single writer stores into a fixed ring and bumps a volatile sequence, it never blocks or waits on a subscriber.
+// A subscriber has at most one drain task queued on its executor:
+//  - LATEST subscribers skip straight to the newest result, so a slow consumer such as the UI never sees stale ones.
+//  - EVERY subscribers see every result, unless they fall more than the ring capacity behind, then the oldest are
+//    skipped and counted.
+public class ResultStream<T> {
+    public enum Delivery {
+        LATEST,
+        EVERY
+    }
+
+    private final Entry<T>[] ring;
+    private final int mask;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile long published = 0;
+
+    // capacity is rounded up to a power of two
+    @SuppressWarnings("unchecked")
+    public ResultStream(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.ring = (Entry<T>[]) new Entry[size];
+        this.mask = size - 1;
+    }
+
+    // Only ever called from one thread
+    public void publish(T value) {
+        long sequence = published;
+        ring[(int) (sequence & mask)] = new Entry<>(sequence, value);
+        published = sequence + 1;
+        for (Subscription subscription : subscriptions) {
+            subscription.schedule();
+        }
+    }
+
+    // Delivery starts with the next published result
+    public Subscription subscribe(Executor executor, Delivery delivery, Consumer<? super T> consumer) {
+        Subscription subscription = new Subscription(executor, delivery, consumer, published);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    private static class Entry<T> {
+        final long sequence;
+        final T value;
+
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    public class Subscription implements Runnable {
+        private final Executor executor;
+        private final Delivery delivery;
+        private final Consumer<? super T> consumer;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        private volatile long delivered = 0;
+        private volatile long skipped = 0;
+        private long cursor; // Only touched by the drain task
+
+        private Subscription(Executor executor, Delivery delivery, Consumer<? super T> consumer, long cursor) {
+            this.executor = executor;
+            this.delivery = delivery;
+            this.consumer = consumer;
+            this.cursor = cursor;
+        }
+
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!cancelled) {
+                    long end = published;
+                    if (cursor == end) {
+                        scheduled.set(false);
+                        // Recheck, a result published before the flag was cleared would otherwise wait for the next one
+                        if (published == end || !scheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    long next = delivery == Delivery.LATEST ? end - 1 : Math.max(cursor, end - ring.length);
+                    Entry<T> entry = ring[(int) (next & mask)];
+                    if (entry == null || entry.sequence != next) {
+                        continue; // Overwritten by the writer in the meantime, retry from a newer result
+                    }
+                    skipped += next - cursor;
+                    cursor = next + 1;
+                    delivered++;
+                    consumer.accept(entry.value);
+                }
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+
+        // Stop delivery, a consumer call already running completes
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        // Results this subscriber never saw, because of conflation or because it fell behind the ring
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+}
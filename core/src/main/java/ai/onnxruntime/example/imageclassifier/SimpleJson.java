@@ -0,0 +1,168 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JSON reader for tool output such as ORT profiles, no dependency needed on Android or the JVM.
+// Objects become Map<String, Object>, arrays List<Object>, numbers Double, plus String, Boolean and null.
+public class SimpleJson {
+    private final Reader in;
+    private int peek = -2;
+
+    private SimpleJson(Reader in) {
+        this.in = in;
+    }
+
+    public static Object parse(Reader in) throws IOException {
+        SimpleJson parser = new SimpleJson(in);
+        Object value = parser.readValue();
+        if (parser.skipWhitespace() != -1) {
+            throw new IOException("Trailing data after JSON value");
+        }
+        return value;
+    }
+
+    private int peek() throws IOException {
+        if (peek == -2) {
+            peek = in.read();
+        }
+        return peek;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        peek = -2;
+        return c;
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (peek() == ' ' || peek() == '\n' || peek() == '\r' || peek() == '\t') {
+            next();
+        }
+        return peek();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = next();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but got " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+    }
+
+    private Object readValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{': return readObject();
+            case '[': return readArray();
+            case '"': return readString();
+            case 't': readLiteral("true"); return Boolean.TRUE;
+            case 'f': readLiteral("false"); return Boolean.FALSE;
+            case 'n': readLiteral("null"); return null;
+            case -1: throw new IOException("Unexpected end of JSON");
+            default: return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+        expect('{');
+        Map<String, Object> object = new LinkedHashMap<>();
+        if (skipWhitespace() == '}') {
+            next();
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            int c = skipWhitespace();
+            next();
+            if (c == '}') {
+                return object;
+            } else if (c != ',') {
+                throw new IOException("Expected ',' or '}' in object");
+            }
+        }
+    }
+
+    private List<Object> readArray() throws IOException {
+        expect('[');
+        List<Object> array = new ArrayList<>();
+        if (skipWhitespace() == ']') {
+            next();
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            int c = skipWhitespace();
+            next();
+            if (c == ']') {
+                return array;
+            } else if (c != ',') {
+                throw new IOException("Expected ',' or ']' in array");
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw new IOException("Unterminated JSON string");
+            } else if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                int escaped = next();
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) next();
+                        }
+                        sb.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    default: sb.append((char) escaped); break;
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private Double readNumber() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = peek();
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) next());
+            } else {
+                break;
+            }
+        }
+        try {
+            return Double.valueOf(sb.toString());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid JSON number '" + sb + "'");
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw new IOException("Invalid JSON literal, expected " + literal);
+            }
+        }
+    }
+}
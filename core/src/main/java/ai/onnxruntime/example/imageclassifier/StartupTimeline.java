@@ -0,0 +1,37 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Startup phase timings in milliseconds since the timeline was created, for phases that may overlap.
+// Each phase is recorded once, when it completes, and can be marked from any thread.
+public class StartupTimeline {
+    private final long startTimeNs = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    // Record the phase as completed now, false if it was already recorded
+    public synchronized boolean mark(String phase) {
+        if (phases.containsKey(phase)) {
+            return false;
+        }
+        phases.put(phase, (System.nanoTime() - startTimeNs) / 1000000);
+        return true;
+    }
+
+    // Completion offsets in the order the phases completed
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(phase.getKey()).append('=').append(phase.getValue()).append("ms");
+        }
+        return sb.toString();
+    }
+}
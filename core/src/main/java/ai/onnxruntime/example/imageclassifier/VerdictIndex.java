@@ -0,0 +1,451 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+// Persistent verdict index for already-scanned media, keyed by content hash.
+// Detection summaries are kept in an append-only log, a memory-mapped open-addressing table maps the
+// first 8 bytes of each SHA-256 content hash to the offset of its latest log record.
+// The log is stamped with the model and policy versions, opening it with other versions invalidates it.
+// A directory is used by one index at a time, an exclusive lock on verdicts.lock is held while it is open.
+//
+// Log:   header [magic, format, modelVersion, policyVersion]
+//        records [payloadLength, crc32, hash(32), count(2), count * (x, y, w, h, confidence, class(2))]
+// Table: header [magic, capacity, size, indexedLogLength(8)], slots [hashPrefix(8), logOffset(8)]
+public class VerdictIndex implements AutoCloseable {
+    public static final int HASH_BYTES = 32;
+    private static final int LOG_MAGIC = 0x4E564C47; // "NVLG"
+    private static final int TABLE_MAGIC = 0x4E564958; // "NVIX"
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOG_HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int DETECTION_BYTES = 22;
+    private static final int TABLE_HEADER_BYTES = 20;
+    private static final int SLOT_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Directories open in this process. Checked before locking, as closing a second channel on the lock file
+    // would drop the process's lock on some platforms.
+    private static final Set<String> openDirectories = new HashSet<>();
+
+    private final String directory;
+    private final File logFile;
+    private final File tableFile;
+    private final RandomAccessFile lockFile;
+    private final FileLock lock;
+    private final int modelVersion;
+    private final int policyVersion;
+    private RandomAccessFile log;
+    private RandomAccessFile table;
+    private MappedByteBuffer slots;
+    private int capacity;
+    private int size;
+
+    public VerdictIndex(File dir, int modelVersion, int policyVersion) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create verdict index directory " + dir);
+        }
+        this.logFile = new File(dir, "verdicts.log");
+        this.tableFile = new File(dir, "verdicts.idx");
+        this.modelVersion = modelVersion;
+        this.policyVersion = policyVersion;
+        this.directory = dir.getCanonicalPath();
+        synchronized (openDirectories) {
+            if (!openDirectories.add(directory)) {
+                throw new IOException("Verdict index " + dir + " is already open");
+            }
+        }
+        FileLock acquired = null;
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(new File(dir, "verdicts.lock"), "rw");
+            acquired = file.getChannel().tryLock();
+        } finally {
+            if (acquired == null) {
+                if (file != null) {
+                    file.close();
+                }
+                synchronized (openDirectories) {
+                    openDirectories.remove(directory);
+                }
+            }
+        }
+        if (acquired == null) {
+            throw new IOException("Verdict index " + dir + " is in use by another process");
+        }
+        this.lockFile = file;
+        this.lock = acquired;
+        try {
+            openLog();
+            openTable();
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    // SHA-256 of the media bytes
+    public static byte[] hash(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] data = new byte[16384];
+        int nRead;
+        while ((nRead = in.read(data, 0, data.length)) != -1) {
+            digest.update(data, 0, nRead);
+        }
+        return digest.digest();
+    }
+
+    public static byte[] hash(byte[] content) {
+        return newDigest().digest(content);
+    }
+
+    // Detections stored for this content hash, or null if it has not been scanned with the current model and policy
+    public synchronized List<DetectionResult> lookup(byte[] contentHash) throws IOException {
+        checkHash(contentHash);
+        long prefix = prefix(contentHash);
+        for (int slot = slotFor(prefix); ; slot = (slot + 1) & (capacity - 1)) {
+            long key = slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES);
+            if (key == 0) {
+                return null;
+            }
+            if (key == prefix) {
+                ByteBuffer payload = readPayload(slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES + 8));
+                byte[] storedHash = new byte[HASH_BYTES];
+                payload.get(storedHash);
+                if (Arrays.equals(storedHash, contentHash)) {
+                    return readDetections(payload);
+                }
+            }
+        }
+    }
+
+    public synchronized void put(byte[] contentHash, List<DetectionResult> detections) throws IOException {
+        checkHash(contentHash);
+        long offset = log.length();
+        writeRecord(log, offset, contentHash, detections);
+        insert(contentHash, offset);
+        slots.putLong(12, log.length());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Drop every stored verdict, e.g. after the model or policy changed while the index was open
+    public synchronized void invalidate() throws IOException {
+        log.setLength(0);
+        writeLogHeader(log);
+        resetTable(INITIAL_CAPACITY);
+    }
+
+    // Rewrite the log keeping only the latest record of every content hash
+    public synchronized void compact() throws IOException {
+        File tmpFile = new File(logFile.getPath() + ".tmp");
+        try (RandomAccessFile tmp = new RandomAccessFile(tmpFile, "rw")) {
+            tmp.setLength(0);
+            writeLogHeader(tmp);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES) == 0) {
+                    continue;
+                }
+                ByteBuffer payload = readPayload(slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES + 8));
+                byte[] storedHash = new byte[HASH_BYTES];
+                payload.get(storedHash);
+                writeRecord(tmp, tmp.length(), storedHash, readDetections(payload));
+            }
+        }
+        log.close();
+        if (!tmpFile.renameTo(logFile)) {
+            // The original log and the table still match, keep using them
+            log = new RandomAccessFile(logFile, "rw");
+            tmpFile.delete();
+            throw new IOException("Cannot replace " + logFile);
+        }
+        log = new RandomAccessFile(logFile, "rw");
+        rebuildTable();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        slots.force();
+        closeFiles();
+    }
+
+    private void closeFiles() throws IOException {
+        try {
+            if (table != null) {
+                table.close();
+            }
+            if (log != null) {
+                log.close();
+            }
+        } finally {
+            try {
+                lock.release();
+                lockFile.close();
+            } finally {
+                synchronized (openDirectories) {
+                    openDirectories.remove(directory);
+                }
+            }
+        }
+    }
+
+    private void openLog() throws IOException {
+        log = new RandomAccessFile(logFile, "rw");
+        if (log.length() >= LOG_HEADER_BYTES) {
+            log.seek(0);
+            if (log.readInt() == LOG_MAGIC && log.readInt() == FORMAT_VERSION
+                    && log.readInt() == modelVersion && log.readInt() == policyVersion) {
+                return;
+            }
+        }
+        // New log, or one written by another model or policy version
+        log.setLength(0);
+        writeLogHeader(log);
+        tableFile.delete();
+    }
+
+    private void writeLogHeader(RandomAccessFile file) throws IOException {
+        file.seek(0);
+        file.writeInt(LOG_MAGIC);
+        file.writeInt(FORMAT_VERSION);
+        file.writeInt(modelVersion);
+        file.writeInt(policyVersion);
+    }
+
+    private void openTable() throws IOException {
+        table = new RandomAccessFile(tableFile, "rw");
+        if (table.length() >= TABLE_HEADER_BYTES) {
+            table.seek(0);
+            int magic = table.readInt();
+            int storedCapacity = table.readInt();
+            int storedSize = table.readInt();
+            long indexedLength = table.readLong();
+            if (magic == TABLE_MAGIC && Integer.bitCount(storedCapacity) == 1
+                    && table.length() == TABLE_HEADER_BYTES + (long) storedCapacity * SLOT_BYTES
+                    && indexedLength >= LOG_HEADER_BYTES && indexedLength <= log.length()) {
+                capacity = storedCapacity;
+                size = storedSize;
+                slots = table.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, table.length());
+                // Index the records appended after the table was last updated
+                replayLog(indexedLength);
+                return;
+            }
+        }
+        rebuildTable();
+    }
+
+    private void rebuildTable() throws IOException {
+        resetTable(INITIAL_CAPACITY);
+        replayLog(LOG_HEADER_BYTES);
+    }
+
+    private void resetTable(int newCapacity) throws IOException {
+        if (table != null) {
+            table.close();
+        }
+        slots = null;
+        tableFile.delete();
+        table = new RandomAccessFile(tableFile, "rw");
+        table.setLength(TABLE_HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+        slots = table.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, table.length());
+        capacity = newCapacity;
+        size = 0;
+        slots.putInt(0, TABLE_MAGIC);
+        slots.putInt(4, capacity);
+        slots.putInt(8, size);
+        slots.putLong(12, LOG_HEADER_BYTES);
+    }
+
+    // Index log records from offset to the end.
+    // Whatever follows the last valid record, a torn record left by a crash however short, is truncated so later
+    // appends never land behind garbage.
+    private void replayLog(long offset) throws IOException {
+        long length = log.length();
+        while (offset + RECORD_HEADER_BYTES <= length) {
+            ByteBuffer payload;
+            try {
+                payload = readPayload(offset);
+            } catch (IOException e) {
+                break;
+            }
+            byte[] storedHash = new byte[HASH_BYTES];
+            payload.get(storedHash);
+            insert(storedHash, offset);
+            offset += RECORD_HEADER_BYTES + payload.capacity();
+        }
+        if (offset < length) {
+            log.setLength(offset);
+        }
+        slots.putLong(12, log.length());
+    }
+
+    // Point the hash at a new record. Hashes sharing the 8-byte prefix each keep their own slot, a slot is only
+    // replaced when the full hash of its record matches.
+    private void insert(byte[] contentHash, long offset) throws IOException {
+        if ((size + 1) * 2 > capacity) {
+            grow();
+        }
+        long prefix = prefix(contentHash);
+        for (int slot = slotFor(prefix); ; slot = (slot + 1) & (capacity - 1)) {
+            int position = TABLE_HEADER_BYTES + slot * SLOT_BYTES;
+            long key = slots.getLong(position);
+            if (key == 0) {
+                insertAt(position, prefix, offset);
+                return;
+            }
+            if (key == prefix && Arrays.equals(readHash(slots.getLong(position + 8)), contentHash)) {
+                slots.putLong(position + 8, offset);
+                return;
+            }
+        }
+    }
+
+    // Entries moved by grow() are distinct records, they only need a free slot
+    private void insertEntry(long prefix, long offset) {
+        for (int slot = slotFor(prefix); ; slot = (slot + 1) & (capacity - 1)) {
+            int position = TABLE_HEADER_BYTES + slot * SLOT_BYTES;
+            if (slots.getLong(position) == 0) {
+                insertAt(position, prefix, offset);
+                return;
+            }
+        }
+    }
+
+    private void insertAt(int position, long prefix, long offset) {
+        size++;
+        slots.putInt(8, size);
+        slots.putLong(position, prefix);
+        slots.putLong(position + 8, offset);
+    }
+
+    private byte[] readHash(long offset) throws IOException {
+        ByteBuffer hash = ByteBuffer.allocate(HASH_BYTES);
+        readFully(log.getChannel(), hash, offset + RECORD_HEADER_BYTES);
+        return hash.array();
+    }
+
+    private void grow() throws IOException {
+        long[] entries = new long[size * 2];
+        int n = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES);
+            if (key != 0) {
+                entries[n++] = key;
+                entries[n++] = slots.getLong(TABLE_HEADER_BYTES + slot * SLOT_BYTES + 8);
+            }
+        }
+        long indexedLength = slots.getLong(12);
+        resetTable(capacity * 2);
+        for (int i = 0; i < n; i += 2) {
+            insertEntry(entries[i], entries[i + 1]);
+        }
+        slots.putLong(12, indexedLength);
+    }
+
+    private int slotFor(long prefix) {
+        return (int) (prefix ^ (prefix >>> 32)) & (capacity - 1);
+    }
+
+    private void writeRecord(RandomAccessFile file, long offset, byte[] contentHash, List<DetectionResult> detections)
+            throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(HASH_BYTES + 2 + detections.size() * DETECTION_BYTES);
+        payload.put(contentHash);
+        payload.putShort((short) detections.size());
+        for (DetectionResult detection : detections) {
+            payload.putFloat(detection.x);
+            payload.putFloat(detection.y);
+            payload.putFloat(detection.width);
+            payload.putFloat(detection.height);
+            payload.putFloat(detection.confidence);
+            payload.putShort((short) detection.classIndex);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payload.capacity());
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.capacity());
+        record.putInt(payload.capacity());
+        record.putInt((int) crc.getValue());
+        record.put(payload.array());
+        record.flip();
+        FileChannel channel = file.getChannel();
+        while (record.hasRemaining()) {
+            offset += channel.write(record, offset);
+        }
+    }
+
+    private ByteBuffer readPayload(long offset) throws IOException {
+        FileChannel channel = log.getChannel();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(channel, header, offset);
+        int length = header.getInt(0);
+        if (length < HASH_BYTES + 2 || offset + RECORD_HEADER_BYTES + length > log.length()) {
+            throw new IOException("Corrupt verdict record at " + offset);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        if ((int) crc.getValue() != header.getInt(4)) {
+            throw new IOException("Corrupt verdict record at " + offset);
+        }
+        payload.rewind();
+        return payload;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset + buffer.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of verdict log");
+            }
+        }
+    }
+
+    private static List<DetectionResult> readDetections(ByteBuffer payload) {
+        int count = payload.getShort() & 0xFFFF;
+        List<DetectionResult> detections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            detections.add(new DetectionResult(
+                    payload.getFloat(), payload.getFloat(), payload.getFloat(), payload.getFloat(),
+                    payload.getFloat(), payload.getShort()
+            ));
+        }
+        return detections;
+    }
+
+    // Non-zero table key from the first 8 bytes of the hash, zero marks an empty slot
+    private static long prefix(byte[] contentHash) {
+        long prefix = ByteBuffer.wrap(contentHash, 0, 8).getLong();
+        return prefix == 0 ? 1 : prefix;
+    }
+
+    private static void checkHash(byte[] contentHash) {
+        if (contentHash.length != HASH_BYTES) {
+            throw new IllegalArgumentException("Content hash must be " + HASH_BYTES + " bytes");
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
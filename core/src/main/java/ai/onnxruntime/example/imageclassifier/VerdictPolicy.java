@@ -0,0 +1,50 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.util.List;
+
+// Turns detections into a safe / unsafe verdict.
+// A frame or image is unsafe when any exposed-body-part class is detected at or above the threshold.
+// The version is stored with cached verdicts so they are invalidated when the policy changes.
+public class VerdictPolicy {
+    public static final int VERSION = 1;
+    public static final float DEFAULT_THRESHOLD = 0.5f;
+
+    // NudeNet class indices
+    private static final int BUTTOCKS_EXPOSED = 2;
+    private static final int FEMALE_BREAST_EXPOSED = 3;
+    private static final int FEMALE_GENITALIA_EXPOSED = 4;
+    private static final int ANUS_EXPOSED = 6;
+    private static final int MALE_GENITALIA_EXPOSED = 14;
+
+    private final float threshold;
+
+    public VerdictPolicy() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public VerdictPolicy(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public static boolean isUnsafeClass(int classIndex) {
+        switch (classIndex) {
+            case BUTTOCKS_EXPOSED:
+            case FEMALE_BREAST_EXPOSED:
+            case FEMALE_GENITALIA_EXPOSED:
+            case ANUS_EXPOSED:
+            case MALE_GENITALIA_EXPOSED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isUnsafe(List<DetectionResult> detections) {
+        for (DetectionResult detection : detections) {
+            if (detection.confidence >= threshold && isUnsafeClass(detection.classIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
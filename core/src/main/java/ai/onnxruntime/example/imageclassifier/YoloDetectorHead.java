@@ -0,0 +1,25 @@
+package ai.onnxruntime.example.imageclassifier;
+
+// Head for YOLO-style detectors such as NudeNet 320n, output [1, 4 + classes, anchors]
+public class YoloDetectorHead implements ModelHead {
+    private final float threshold;
+
+    public YoloDetectorHead() {
+        this(DetectionDecoder.SCORE_THRESHOLD);
+    }
+
+    public YoloDetectorHead(float threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Normalization getInputNormalization() {
+        return Normalization.UNIT;
+    }
+
+    @Override
+    public void decode(Object output, int inputSize, Result result) {
+        float[][][] rawOutput = (float[][][]) output;
+        NudeNetPipeline.setDetections(result, DetectionDecoder.decode(rawOutput[0], threshold, inputSize));
+    }
+}
@@ -0,0 +1,33 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import java.nio.ByteBuffer;
+
+// Camera frame in YUV_420_888 layout, decoupled from CameraX so the pipeline can run headlessly.
+// Plane buffers may wrap the camera memory directly, they are only valid while the source frame is open.
+public class YuvFrame {
+    public final int width;
+    public final int height;
+    public final int rotationDegrees;
+    public final long timestampNs;
+    public final Plane[] planes;
+
+    public YuvFrame(int width, int height, int rotationDegrees, long timestampNs, Plane[] planes) {
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.timestampNs = timestampNs;
+        this.planes = planes;
+    }
+
+    public static class Plane {
+        public final ByteBuffer buffer;
+        public final int rowStride;
+        public final int pixelStride;
+
+        public Plane(ByteBuffer buffer, int rowStride, int pixelStride) {
+            this.buffer = buffer;
+            this.rowStride = rowStride;
+            this.pixelStride = pixelStride;
+        }
+    }
+}
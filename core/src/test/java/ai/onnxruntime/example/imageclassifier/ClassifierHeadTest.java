@@ -0,0 +1,117 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClassifierHeadTest {
+    @Test
+    public void topKOrdersDescendingWithLowerIndexFirstOnTies() {
+        float[] values = {1f, 3f, 2f, 3f, 1f, 3f};
+        int[] out = new int[4];
+
+        assertEquals(4, ClassifierHead.topK(values, values.length, 4, out));
+        assertArrayEquals(new int[]{1, 3, 5, 2}, out);
+    }
+
+    @Test
+    public void topKSkipsNaN() {
+        float[] values = {Float.NaN, 0.5f, Float.NaN, -1f, 0.5f};
+        int[] out = new int[5];
+
+        assertEquals(3, ClassifierHead.topK(values, values.length, 5, out));
+        assertArrayEquals(new int[]{1, 4, 3}, Arrays.copyOf(out, 3));
+        assertEquals(0, ClassifierHead.topK(new float[]{Float.NaN, Float.NaN}, 2, 2, out));
+    }
+
+    @Test
+    public void topKReturnsAtMostN() {
+        int[] out = new int[10];
+        assertEquals(3, ClassifierHead.topK(new float[]{0f, 2f, 1f}, 3, 10, out));
+        assertArrayEquals(new int[]{1, 2, 0}, Arrays.copyOf(out, 3));
+        assertEquals(0, ClassifierHead.topK(new float[]{1f}, 1, 0, out));
+        assertEquals(0, ClassifierHead.topK(new float[0], 0, 3, out));
+    }
+
+    @Test
+    public void topKMatchesFullSort() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(300);
+            float[] values = new float[n];
+            for (int i = 0; i < n; i++) {
+                // Few distinct values so ties are common, plus the odd NaN and infinity
+                int pick = random.nextInt(20);
+                values[i] = pick == 0 ? Float.NaN : pick == 1 ? Float.NEGATIVE_INFINITY : pick - 10;
+            }
+            int k = random.nextInt(n + 2);
+            int[] out = new int[k];
+            int count = ClassifierHead.topK(values, n, k, out);
+
+            int[] expected = reference(values, k);
+            assertEquals(expected.length, count);
+            assertArrayEquals(expected, Arrays.copyOf(out, count));
+        }
+    }
+
+    @Test
+    public void softMaxSumsToOneAndKeepsOrder() {
+        float[] logits = {2f, -1f, 0.5f, 2f};
+        float[] out = new float[4];
+        ClassifierHead.softMax(logits, out, 4);
+
+        assertEquals(1f, out[0] + out[1] + out[2] + out[3], 1e-6f);
+        assertEquals(out[0], out[3], 0f);
+        assertTrue(out[0] > out[2] && out[2] > out[1]);
+        assertEquals(Math.exp(2 - 0.5), out[0] / out[2], 1e-5);
+    }
+
+    @Test
+    public void softMaxIsStableForLargeAndVeryNegativeLogits() {
+        float[] large = {1000f, 999f, 998f};
+        float[] out = new float[3];
+        ClassifierHead.softMax(large, out, 3);
+        assertEquals(1f, out[0] + out[1] + out[2], 1e-6f);
+        assertEquals(Math.exp(1), out[0] / out[1], 1e-5);
+
+        float[] negative = {-1000f, -1001f};
+        ClassifierHead.softMax(negative, negative, 2); // In place
+        assertEquals(1f, negative[0] + negative[1], 1e-6f);
+        assertEquals(1 / (1 + Math.exp(-1)), negative[0], 1e-6);
+    }
+
+    @Test
+    public void decodeStoresTopKProbabilities() {
+        ClassifierHead head = new ClassifierHead(2, true, Normalization.IMAGENET);
+        Result result = new Result();
+        head.decode(new float[][]{{0f, 3f, 1f, 3f}}, 224, result);
+
+        assertEquals(Arrays.asList(1, 3), result.detectedIndices);
+        float expected = (float) (Math.exp(3) / (1 + 2 * Math.exp(3) + Math.exp(1)));
+        assertEquals(expected, result.detectedScore.get(0), 1e-6f);
+        assertEquals(expected, result.detectedScore.get(1), 1e-6f);
+    }
+
+    // Non-NaN indices sorted by value descending, then index ascending, cut to k
+    private static int[] reference(float[] values, int k) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (!Float.isNaN(values[i])) {
+                indices.add(i);
+            }
+        }
+        indices.sort((a, b) -> values[a] != values[b] ? Float.compare(values[b], values[a]) : Integer.compare(a, b));
+        int[] out = new int[Math.min(k, indices.size())];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = indices.get(i);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,96 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FrameRecorderTest {
+    @Test
+    public void framesRoundTrip() throws IOException {
+        Random random = new Random(13);
+        List<YuvFrame> frames = new ArrayList<>();
+        int[] rotations = {0, 90, 180, 270};
+        for (int i = 0; i < 6; i++) {
+            int width = 16 + 2 * i;
+            int height = 8 + i;
+            int chromaWidth = (width + 1) / 2;
+            int chromaHeight = (height + 1) / 2;
+            frames.add(new YuvFrame(width, height, rotations[i % 4], 1000000000L + i * 33333333L,
+                    new YuvFrame.Plane[] {
+                            plane(random, height, width, width + 4, 1, i % 2 == 0),
+                            // Interleaved chroma like NV21, pixel stride 2
+                            plane(random, chromaHeight, chromaWidth, 2 * chromaWidth, 2, false),
+                            plane(random, chromaHeight, chromaWidth, 2 * chromaWidth, 2, true),
+                    }));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FrameRecorder recorder = new FrameRecorder(bytes)) {
+            for (YuvFrame frame : frames) {
+                recorder.write(frame);
+            }
+            assertEquals(frames.size(), recorder.getFramesWritten());
+        }
+
+        try (FrameReader reader = new FrameReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (YuvFrame expected : frames) {
+                YuvFrame actual = reader.read();
+                assertEquals(expected.width, actual.width);
+                assertEquals(expected.height, actual.height);
+                assertEquals(expected.rotationDegrees, actual.rotationDegrees);
+                assertEquals(expected.timestampNs, actual.timestampNs);
+                assertEquals(expected.planes.length, actual.planes.length);
+                for (int p = 0; p < expected.planes.length; p++) {
+                    assertEquals(expected.planes[p].rowStride, actual.planes[p].rowStride);
+                    assertEquals(expected.planes[p].pixelStride, actual.planes[p].pixelStride);
+                    assertArrayEquals(contents(expected.planes[p].buffer), contents(actual.planes[p].buffer));
+                }
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void writingLeavesTheFrameBuffersUntouched() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.position(10);
+        YuvFrame frame = new YuvFrame(8, 8, 0, 0, new YuvFrame.Plane[] {new YuvFrame.Plane(buffer, 8, 1)});
+        try (FrameRecorder recorder = new FrameRecorder(new ByteArrayOutputStream())) {
+            recorder.write(frame);
+        }
+        assertEquals(10, buffer.position());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new FrameReader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})).close();
+    }
+
+    // Camera-like plane whose last row is not padded to the row stride, optionally read-only and direct
+    private static YuvFrame.Plane plane(Random random, int rows, int width, int rowStride, int pixelStride,
+                                        boolean direct) {
+        byte[] data = new byte[(rows - 1) * rowStride + (width - 1) * pixelStride + 1];
+        random.nextBytes(data);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+        buffer.put(data).flip();
+        return new YuvFrame.Plane(direct ? buffer.asReadOnlyBuffer() : buffer, rowStride, pixelStride);
+    }
+
+    private static byte[] contents(ByteBuffer buffer) {
+        ByteBuffer copy = buffer.duplicate();
+        copy.rewind();
+        byte[] data = new byte[copy.remaining()];
+        copy.get(data);
+        return data;
+    }
+}
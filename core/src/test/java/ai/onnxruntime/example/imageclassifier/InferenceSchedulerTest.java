@@ -0,0 +1,150 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Blocked callers are observed through the scheduler state and their thread state, never through sleeps
+public class InferenceSchedulerTest {
+    private static final long LONG_SLO_MS = 60000;
+
+    @Test
+    public void perClassLimitsHold() throws Exception {
+        InferenceScheduler scheduler = new InferenceScheduler(3, 1, 2, 50);
+        InferenceScheduler.Permit bulk1 = scheduler.acquireBulk();
+        InferenceScheduler.Permit bulk2 = scheduler.acquireBulk();
+        InferenceScheduler.Permit live = scheduler.acquireInteractive(); // Third slot, bulk is at its limit
+        assertNotNull(live);
+        assertEquals(InferenceScheduler.Priority.INTERACTIVE, live.getPriority());
+
+        // A second live frame is over the interactive limit and goes stale waiting
+        assertNull(scheduler.acquireInteractive());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Thread[] bulkThread = new Thread[1];
+            Future<InferenceScheduler.Permit> bulk3 = executor.submit(() -> {
+                bulkThread[0] = Thread.currentThread();
+                return scheduler.acquireBulk();
+            });
+            awaitTrue(() -> bulkThread[0] != null && bulkThread[0].getState() == Thread.State.WAITING);
+            assertFalse(bulk3.isDone());
+
+            live.close(); // Frees a slot, but bulk is still at its limit
+            awaitTrue(() -> bulkThread[0].getState() == Thread.State.WAITING);
+            assertFalse(bulk3.isDone());
+
+            bulk1.close();
+            assertEquals(InferenceScheduler.Priority.BULK, bulk3.get(5, TimeUnit.SECONDS).getPriority());
+        } finally {
+            executor.shutdownNow();
+        }
+        bulk2.close();
+    }
+
+    @Test
+    public void staleFrameIsDroppedPastTheSlo() throws Exception {
+        InferenceScheduler scheduler = new InferenceScheduler(1, 1, 1, 20);
+        try (InferenceScheduler.Permit bulk = scheduler.acquireBulk()) {
+            long startTime = System.nanoTime();
+            assertNull(scheduler.acquireInteractive());
+            assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(20));
+            assertEquals(1, scheduler.getInteractiveDropped());
+        }
+        // With the slot free the next frame runs at once
+        try (InferenceScheduler.Permit live = scheduler.acquireInteractive()) {
+            assertNotNull(live);
+        }
+    }
+
+    @Test
+    public void newerFrameSupersedesAWaitingOne() throws Exception {
+        InferenceScheduler scheduler = new InferenceScheduler(1, 1, 1, LONG_SLO_MS);
+        InferenceScheduler.Permit bulk = scheduler.acquireBulk();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<InferenceScheduler.Permit> older = executor.submit(scheduler::acquireInteractive);
+            awaitTrue(() -> scheduler.getWaitingInteractive() == 1);
+            Future<InferenceScheduler.Permit> newer = executor.submit(scheduler::acquireInteractive);
+
+            // The older frame gives up without waiting for the slot or the SLO
+            assertNull(older.get(5, TimeUnit.SECONDS));
+            assertEquals(1, scheduler.getInteractiveDropped());
+            assertFalse(newer.isDone());
+
+            bulk.close();
+            assertNotNull(newer.get(5, TimeUnit.SECONDS));
+            assertEquals(1, scheduler.getInteractiveDropped());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void bulkYieldsWhileALiveFrameWaits() throws Exception {
+        InferenceScheduler scheduler = new InferenceScheduler(2, 1, 1, LONG_SLO_MS);
+        InferenceScheduler.Permit first = scheduler.acquireInteractive();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<InferenceScheduler.Permit> waitingLive = executor.submit(scheduler::acquireInteractive);
+            awaitTrue(() -> scheduler.getWaitingInteractive() == 1);
+
+            // A slot is free and bulk is under its limit, but the waiting live frame goes first
+            Future<InferenceScheduler.Permit> bulk = executor.submit(scheduler::acquireBulk);
+            awaitTrue(() -> scheduler.getBulkYields() == 1);
+            assertFalse(bulk.isDone());
+
+            first.close();
+            InferenceScheduler.Permit live = waitingLive.get(5, TimeUnit.SECONDS);
+            assertNotNull(live);
+            assertNotNull(bulk.get(5, TimeUnit.SECONDS)); // Runs next to the live frame once none waits
+            assertEquals(1, scheduler.getBulkYields());
+            live.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void bulkYieldsToRunningFramesWhileMissingTheSlo() throws Exception {
+        InferenceScheduler scheduler = new InferenceScheduler(2, 1, 1, 1);
+        for (int i = 0; i < 8; i++) {
+            try (InferenceScheduler.Permit live = scheduler.acquireInteractive()) {
+                assertNotNull(live);
+                Thread.sleep(3); // Over the 1ms SLO
+            }
+        }
+        assertTrue(scheduler.isMissingSlo());
+
+        InferenceScheduler.Permit live = scheduler.acquireInteractive();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<InferenceScheduler.Permit> bulk = executor.submit(scheduler::acquireBulk);
+            awaitTrue(() -> scheduler.getBulkYields() == 1);
+            assertFalse(bulk.isDone());
+
+            live.close();
+            assertNotNull(bulk.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for the scheduler", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
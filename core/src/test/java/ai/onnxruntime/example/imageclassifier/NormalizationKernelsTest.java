@@ -0,0 +1,103 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+// The lookup tables and every kernel must give exactly the direct (value / 255 - mean) / std formula
+public class NormalizationKernelsTest {
+    private static final Normalization[] NORMALIZATIONS = {
+            Normalization.UNIT,
+            Normalization.IMAGENET,
+            new Normalization(new float[]{0.5f, 0.25f, 0f}, new float[]{0.5f, 2f, 0.1f}),
+    };
+
+    @Test
+    public void lutMatchesDirectFormula() {
+        for (Normalization normalization : NORMALIZATIONS) {
+            for (int c = 0; c < 3; c++) {
+                for (int v = 0; v < 256; v++) {
+                    assertEquals("channel " + c + " value " + v, direct(normalization, c, v),
+                            normalization.getLut(c)[v], 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scalarKernelMatchesDirectFormula() {
+        checkKernel(NormalizationKernels.SCALAR);
+    }
+
+    @Test
+    public void selectedKernelMatchesDirectFormula() {
+        checkKernel(NormalizationKernels.get());
+    }
+
+    @Test
+    public void kernelOnlyWritesItsRange() {
+        int[] pixels = allValues();
+        int count = pixels.length;
+        float[] out = new float[3 * count];
+        Arrays.fill(out, Float.NaN);
+        NormalizationKernels.get().normalize(pixels, 17, 200, count, Normalization.IMAGENET, out);
+        for (int c = 0; c < 3; c++) {
+            for (int idx = 0; idx < count; idx++) {
+                float value = out[c * count + idx];
+                if (idx >= 17 && idx < 200) {
+                    assertEquals(direct(Normalization.IMAGENET, c, channel(pixels[idx], c)), value, 0f);
+                } else {
+                    assertEquals(Float.NaN, value, 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bufferNormalizeMatchesPlanes() {
+        int[] pixels = allValues();
+        FloatBuffer buffer = FloatBuffer.allocate(3 * pixels.length);
+        NormalizationKernels.normalize(pixels, pixels.length, Normalization.IMAGENET, buffer);
+        assertArrayEquals(expected(pixels, Normalization.IMAGENET), buffer.array(), 0f);
+    }
+
+    private static void checkKernel(NormalizationKernel kernel) {
+        int[] pixels = allValues();
+        for (Normalization normalization : NORMALIZATIONS) {
+            float[] out = new float[3 * pixels.length];
+            kernel.normalize(pixels, 0, pixels.length, pixels.length, normalization, out);
+            assertArrayEquals(expected(pixels, normalization), out, 0f);
+        }
+    }
+
+    // Every 0-255 value in every channel, with a different value per channel so swapped planes show up
+    private static int[] allValues() {
+        int[] pixels = new int[256];
+        for (int v = 0; v < 256; v++) {
+            pixels[v] = 0xFF000000 | v << 16 | (255 - v) << 8 | (v * 7 & 0xFF);
+        }
+        return pixels;
+    }
+
+    private static float[] expected(int[] pixels, Normalization normalization) {
+        float[] out = new float[3 * pixels.length];
+        for (int c = 0; c < 3; c++) {
+            for (int idx = 0; idx < pixels.length; idx++) {
+                out[c * pixels.length + idx] = direct(normalization, c, channel(pixels[idx], c));
+            }
+        }
+        return out;
+    }
+
+    private static int channel(int pixel, int c) {
+        return pixel >> (16 - 8 * c) & 0xFF;
+    }
+
+    private static float direct(Normalization normalization, int c, int v) {
+        return (v / 255f - normalization.getMean(c)) / normalization.getStd(c);
+    }
+}
@@ -0,0 +1,115 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+// The banded paths must give exactly the serial results, whatever the band size
+public class ParallelKernelsTest {
+    private static final int[] BAND_ROWS = {1, 7, 64, 1000};
+
+    @Test
+    public void bandedNormalizeMatchesSerial() {
+        for (int size : new int[] {224, 320, 416}) {
+            int[] pixels = randomPixels(size * size, size);
+            for (Normalization normalization : new Normalization[] {Normalization.UNIT, Normalization.IMAGENET}) {
+                NormalizationKernel kernel = NormalizationKernels.get();
+                float[] serial = new float[3 * size * size];
+                ParallelKernels.normalizeRows(kernel, pixels, size, size, 0, size, normalization, serial);
+                for (int bandRows : BAND_ROWS) {
+                    float[] banded = new float[serial.length];
+                    ParallelKernels.forRowBands(size, bandRows, (fromRow, toRow) ->
+                            ParallelKernels.normalizeRows(kernel, pixels, size, size, fromRow, toRow, normalization,
+                                    banded));
+                    assertArrayEquals("size " + size + " band " + bandRows, serial, banded, 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bandedDecodeMatchesSerialInAnchorOrder() {
+        Random random = new Random(7);
+        for (int size : new int[] {224, 320, 416}) {
+            int anchors = DetectionDecoder.anchorCount(size);
+            float[][] output = new float[DetectionDecoder.NUM_BOX_FEATURES + DetectionDecoder.NUM_CLASSES][anchors];
+            for (float[] row : output) {
+                for (int i = 0; i < anchors; i++) {
+                    row[i] = random.nextFloat() * 0.3f;
+                }
+            }
+            List<DetectionResult> serial = new ArrayList<>();
+            DetectionDecoder.decodeRange(output, DetectionDecoder.SCORE_THRESHOLD, 1.5f,
+                    DetectionDecoder.NUM_CLASSES, 0, anchors, serial);
+            for (int bandAnchors : new int[] {1, 100, 1024, anchors}) {
+                List<DetectionResult> banded = ParallelKernels.decodeBands(output, DetectionDecoder.SCORE_THRESHOLD,
+                        1.5f, DetectionDecoder.NUM_CLASSES, bandAnchors);
+                assertEquals(serial.size(), banded.size());
+                for (int i = 0; i < serial.size(); i++) {
+                    assertSame(serial.get(i), banded.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cameraStagesMatchSerialReference() {
+        int width = 1280;
+        int height = 720;
+        int rowStride = width + 32;
+        byte[] luma = new byte[rowStride * height];
+        new Random(3).nextBytes(luma);
+        YuvFrame frame = new YuvFrame(width, height, 90, 0,
+                new YuvFrame.Plane[] {new YuvFrame.Plane(ByteBuffer.wrap(luma), rowStride, 1)});
+
+        int[] argb = ImageOps.yPlaneToArgb(frame, 1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = luma[y * rowStride + x] & 0xFF;
+                assertEquals(0xFF000000 | value << 16 | value << 8 | value, argb[y * width + x]);
+            }
+        }
+
+        int size = 320;
+        int[] scaled = ImageOps.scale(argb, width, height, size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int srcX = (2 * x + 1) * width / (2 * size);
+                int srcY = (2 * y + 1) * height / (2 * size);
+                assertEquals(argb[srcY * width + srcX], scaled[y * size + x]);
+            }
+        }
+
+        for (int degrees : new int[] {90, 180, 270}) {
+            int[] rotated = ImageOps.rotate(scaled, size, size, degrees);
+            int[] back = ImageOps.rotate(rotated, size, size, 360 - degrees);
+            assertArrayEquals("rotate " + degrees, scaled, back);
+        }
+        int[] quarter = ImageOps.rotate(scaled, size, size, 90);
+        assertEquals(scaled[0], quarter[size - 1]); // Top-left moves to top-right
+    }
+
+    private static void assertSame(DetectionResult expected, DetectionResult actual) {
+        assertEquals(expected.x, actual.x, 0f);
+        assertEquals(expected.y, actual.y, 0f);
+        assertEquals(expected.width, actual.width, 0f);
+        assertEquals(expected.height, actual.height, 0f);
+        assertEquals(expected.confidence, actual.confidence, 0f);
+        assertEquals(expected.classIndex, actual.classIndex);
+    }
+
+    private static int[] randomPixels(int count, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[count];
+        for (int i = 0; i < count; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,141 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// ort_profile.json is a trimmed ORT trace: model loading and session events, a warm-up run, then two runs
+public class ProfileReportTest {
+    private static final String SIGMOID = "head \"sigmoid\"\u00e9";
+
+    @Test
+    public void aggregatesNodesAndOperatorTypesAfterTheWarmUpRun() throws IOException {
+        ProfileReport report = parse(1);
+
+        assertEquals(2, report.runs);
+        assertEquals(2000, report.totalRunUs);
+
+        // Sorted by total time, fence events and skipped runs left out
+        assertEquals(Arrays.asList("/model.0/conv/Conv", "/model.1/conv/Conv", SIGMOID), names(report.byNode));
+        check(report.byNode.get(0), "Conv", "CPUExecutionProvider", 2, 640);
+        check(report.byNode.get(1), "Conv", "XnnpackExecutionProvider", 2, 380);
+        check(report.byNode.get(2), "Sigmoid", "CPUExecutionProvider", 2, 220);
+        assertEquals(320.0, report.byNode.get(0).meanUs(), 0);
+        assertEquals(0.32, report.share(report.byNode.get(0)), 1e-9);
+        assertEquals(0.11, report.share(report.byNode.get(2)), 1e-9);
+
+        // The same operator type on two providers stays apart
+        assertEquals(3, report.byOpType.size());
+        check(report.byOpType.get(0), "Conv", "CPUExecutionProvider", 2, 640);
+        check(report.byOpType.get(1), "Conv", "XnnpackExecutionProvider", 2, 380);
+        check(report.byOpType.get(2), "Sigmoid", "CPUExecutionProvider", 2, 220);
+    }
+
+    @Test
+    public void withoutSkippingTheWarmUpRunCounts() throws IOException {
+        ProfileReport report = parse(0);
+
+        assertEquals(3, report.runs);
+        assertEquals(4000, report.totalRunUs);
+        check(report.byNode.get(0), "Conv", "CPUExecutionProvider", 3, 1540);
+        check(report.byNode.get(1), "Sigmoid", "CPUExecutionProvider", 3, 820);
+        assertEquals(0.385, report.share(report.byNode.get(0)), 1e-9);
+    }
+
+    @Test
+    public void skippingEveryRunLeavesAnEmptyReport() throws IOException {
+        ProfileReport report = parse(5);
+        assertEquals(0, report.runs);
+        assertTrue(report.byNode.isEmpty());
+        assertTrue(report.format(10).startsWith("0 runs, mean run 0.00 ms"));
+    }
+
+    @Test
+    public void formatsShareAsPercentOfRunTime() throws IOException {
+        ProfileReport report = parse(1);
+        String text = report.format(1);
+        assertTrue(text, text.startsWith("2 runs, mean run 1.00 ms"));
+        assertTrue(text, text.contains("32.0%"));
+
+        StringWriter csv = new StringWriter();
+        report.writeCsv(new PrintWriter(csv));
+        String[] lines = csv.toString().split("\n");
+        assertEquals("kind,name,op_type,provider,calls,total_us,mean_us,share", lines[0]);
+        assertEquals("op,Conv,Conv,CPUExecutionProvider,2,640,320.00,0.32000", lines[1]);
+        assertEquals("node,/model.0/conv/Conv,Conv,CPUExecutionProvider,2,640,320.00,0.32000", lines[4]);
+        assertEquals(7, lines.length);
+    }
+
+    @Test
+    public void wrappedTraceEventsAreAccepted() throws IOException {
+        String trace = "{\"traceEvents\": [{\"cat\":\"Session\",\"name\":\"model_run\",\"ts\":0,\"dur\":500}],"
+                + " \"displayTimeUnit\": \"ms\"}";
+        ProfileReport report = ProfileReport.parse(new StringReader(trace));
+        assertEquals(1, report.runs);
+        assertEquals(500, report.totalRunUs);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void simpleJsonParsesEscapesNestingAndLiterals() throws IOException {
+        Object json = SimpleJson.parse(new StringReader(
+                " {\"s\": \"a\\\"b\\\\c\\/d\\n\\u00e9\\t\", \"n\": [-1.5e2, 0, 3], "
+                        + "\"o\": {\"inner\": {\"empty\": [], \"none\": null, \"yes\": true, \"no\": false}}} "));
+        Map<String, Object> object = (Map<String, Object>) json;
+        assertEquals("a\"b\\c/d\n\u00e9\t", object.get("s"));
+        assertEquals(Arrays.asList(-150.0, 0.0, 3.0), object.get("n"));
+        Map<String, Object> inner = (Map<String, Object>) ((Map<String, Object>) object.get("o")).get("inner");
+        assertTrue(((List<Object>) inner.get("empty")).isEmpty());
+        assertTrue(inner.containsKey("none"));
+        assertNull(inner.get("none"));
+        assertEquals(Boolean.TRUE, inner.get("yes"));
+        assertEquals(Boolean.FALSE, inner.get("no"));
+    }
+
+    @Test
+    public void simpleJsonRejectsMalformedInput() {
+        for (String malformed : new String[] {"", "[1, 2", "{\"a\" 1}", "\"open", "[1] 2", "tru", "{\"a\": 1,}"}) {
+            try {
+                SimpleJson.parse(new StringReader(malformed));
+                throw new AssertionError("Accepted " + malformed);
+            } catch (IOException expected) {
+                // Malformed
+            }
+        }
+    }
+
+    private static ProfileReport parse(int skipRuns) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                ProfileReportTest.class.getResourceAsStream("ort_profile.json"), StandardCharsets.UTF_8)) {
+            return ProfileReport.parse(reader, skipRuns);
+        }
+    }
+
+    private static void check(ProfileReport.Entry entry, String opType, String provider, long count, long totalUs) {
+        assertEquals(opType, entry.opType);
+        assertEquals(provider, entry.provider);
+        assertEquals(count, entry.count);
+        assertEquals(totalUs, entry.totalUs);
+    }
+
+    private static List<String> names(List<ProfileReport.Entry> entries) {
+        String[] names = new String[entries.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = entries.get(i).name;
+        }
+        return Arrays.asList(names);
+    }
+}
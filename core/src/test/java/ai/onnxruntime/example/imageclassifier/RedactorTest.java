@@ -0,0 +1,220 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedactorTest {
+    private static final int SIZE = DetectionDecoder.REFERENCE_SIZE;
+
+    @Test
+    public void toSourceRectUndoesThePipelineRotation() {
+        // A box in the unrotated model input, rotated with the pipeline's own ImageOps.rotate
+        int[] box = {40, 100, 90, 250}; // left, top, right, bottom
+        for (int degrees : new int[] {0, 90, 180, 270}) {
+            int[] marked = new int[SIZE * SIZE];
+            for (int y = box[1]; y < box[3]; y++) {
+                Arrays.fill(marked, y * SIZE + box[0], y * SIZE + box[2], 1);
+            }
+            DetectionResult detection = boundingBox(ImageOps.rotate(marked, SIZE, SIZE, degrees));
+
+            int[] rect = new int[4];
+            Redactor.toSourceRect(detection, SIZE, SIZE, degrees, rect);
+            assertArrayEquals("rotation " + degrees, box, rect);
+
+            // Undoing the stretch of a 640x480 frame scales each axis on its own
+            Redactor.toSourceRect(detection, 640, 480, degrees, rect);
+            assertArrayEquals("rotation " + degrees, new int[] {80, 150, 180, 375}, rect);
+        }
+    }
+
+    @Test
+    public void toLetterboxedSourceRectUsesOneScaleAndClipsPadding() {
+        int[] rect = new int[4];
+        // 1000x500 is letterboxed to 320x160 at the top-left, scale 3.125 on both axes
+        Redactor.toLetterboxedSourceRect(new DetectionResult(160, 40, 64, 32, 0.9f, 0), 1000, 500, rect);
+        assertArrayEquals(new int[] {400, 75, 600, 175}, rect);
+
+        // Crossing the bottom edge of the image into the padding is clipped
+        Redactor.toLetterboxedSourceRect(new DetectionResult(100, 150, 40, 40, 0.9f, 0), 1000, 500, rect);
+        assertArrayEquals(new int[] {250, 406, 375, 500}, rect);
+
+        // Entirely in the padding is empty
+        Redactor.toLetterboxedSourceRect(new DetectionResult(100, 250, 40, 40, 0.9f, 0), 1000, 500, rect);
+        assertEquals(rect[1], rect[3]);
+
+        // Portrait images pad on the right instead
+        Redactor.toLetterboxedSourceRect(new DetectionResult(80, 160, 32, 64, 0.9f, 0), 500, 1000, rect);
+        assertArrayEquals(new int[] {200, 400, 300, 600}, rect);
+    }
+
+    @Test
+    public void chromaPlanesAreClippedToTheirHalfResolution() {
+        // Odd sizes, and like Android the last row of each plane is not padded to the row stride
+        int width = 33;
+        int height = 17;
+        YuvFrame.Plane luma = plane(height, width, width + 3, 1, 0);
+        YuvFrame.Plane u = plane(9, 17, 20, 1, 1);
+        YuvFrame.Plane v = plane(9, 17, 20, 1, 2);
+        YuvFrame frame = new YuvFrame(width, height, 0, 0, new YuvFrame.Plane[] {luma, u, v});
+        byte[] before = copy(u.buffer);
+
+        // Covers the bottom-right corner of the frame, the chroma rectangle rounds outwards
+        DetectionResult detection = new DetectionResult(SIZE * 0.75f, SIZE * 0.75f, SIZE * 0.5f, SIZE * 0.5f, 0.9f, 0);
+        new Redactor(Redactor.Mode.PIXELATE, 64).redact(frame, Collections.singletonList(detection));
+
+        int[] rect = new int[4];
+        Redactor.toSourceRect(detection, width, height, 0, rect);
+        int left = rect[0] >> 1;
+        int top = rect[1] >> 1;
+        byte[] after = copy(u.buffer);
+        int sum = 0;
+        int count = 0;
+        for (int y = 0; y < 9; y++) {
+            for (int x = 0; x < 17; x++) {
+                int index = y * 20 + x;
+                if (x >= left && y >= top) {
+                    sum += before[index] & 0xFF;
+                    count++;
+                } else {
+                    assertEquals("outside at " + x + "," + y, before[index], after[index]);
+                }
+            }
+        }
+        // One block covers the whole clipped region, down to the last chroma pixel
+        int average = (sum + count / 2) / count;
+        for (int y = top; y < 9; y++) {
+            for (int x = left; x < 17; x++) {
+                assertEquals("inside at " + x + "," + y, average, after[y * 20 + x] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void boxBlurMatchesBruteForceWithClampedEdges() {
+        Random random = new Random(5);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(40);
+            int step = 1 + random.nextInt(3);
+            int offset = random.nextInt(3);
+            int radius = 1 + random.nextInt(50); // Also wider than the line
+            int[] values = new int[offset + n * step];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(256);
+            }
+            int[] expected = values.clone();
+            int window = 2 * radius + 1;
+            for (int i = 0; i < n; i++) {
+                int sum = 0;
+                for (int j = i - radius; j <= i + radius; j++) {
+                    sum += values[offset + Math.max(0, Math.min(n - 1, j)) * step];
+                }
+                expected[offset + i * step] = (sum + window / 2) / window;
+            }
+
+            Redactor.boxBlur(values, offset, step, n, radius, new int[n]);
+            assertArrayEquals("n " + n + " radius " + radius, expected, values);
+        }
+    }
+
+    @Test
+    public void pixelateAveragesPartialEdgeBlocks() {
+        int width = 7;
+        int height = 5;
+        int[] values = new int[width * height];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 7 % 256;
+        }
+        int[] expected = new int[values.length];
+        int[][] blocks = {{0, 3}, {3, 6}, {6, 7}}; // Columns, the last block is one pixel wide
+        int[][] rows = {{0, 3}, {3, 5}};
+        for (int[] blockRows : rows) {
+            for (int[] blockColumns : blocks) {
+                int sum = 0;
+                int count = 0;
+                for (int y = blockRows[0]; y < blockRows[1]; y++) {
+                    for (int x = blockColumns[0]; x < blockColumns[1]; x++) {
+                        sum += values[y * width + x];
+                        count++;
+                    }
+                }
+                for (int y = blockRows[0]; y < blockRows[1]; y++) {
+                    for (int x = blockColumns[0]; x < blockColumns[1]; x++) {
+                        expected[y * width + x] = (sum + count / 2) / count;
+                    }
+                }
+            }
+        }
+
+        Redactor.pixelate(values, width, height, 3);
+        assertArrayEquals(expected, values);
+    }
+
+    @Test
+    public void argbRedactionKeepsAlphaAndPixelsOutsideTheBox() {
+        int width = 100;
+        int height = 50;
+        int[] argb = new int[width * height];
+        Random random = new Random(9);
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = 0x80000000 | random.nextInt(0x1000000);
+        }
+        int[] original = argb.clone();
+        // Letterbox scale 100/320, maps to [25, 12, 50, 25)
+        DetectionResult detection = new DetectionResult(120, 60, 80, 40, 0.9f, 0);
+        new Redactor(Redactor.Mode.BLUR, 4).redact(argb, width, height, Collections.singletonList(detection));
+
+        int[] rect = new int[4];
+        Redactor.toLetterboxedSourceRect(detection, width, height, rect);
+        assertArrayEquals(new int[] {25, 12, 50, 25}, rect);
+        boolean changed = false;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                assertEquals(0x80000000, argb[index] & 0xFF000000);
+                if (x < rect[0] || x >= rect[2] || y < rect[1] || y >= rect[3]) {
+                    assertEquals(original[index], argb[index]);
+                } else {
+                    changed |= original[index] != argb[index];
+                }
+            }
+        }
+        assertTrue(changed);
+    }
+
+    // Detection covering the non-zero pixels of a model input
+    private static DetectionResult boundingBox(int[] pixels) {
+        int left = SIZE;
+        int top = SIZE;
+        int right = 0;
+        int bottom = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (pixels[y * SIZE + x] != 0) {
+                    left = Math.min(left, x);
+                    top = Math.min(top, y);
+                    right = Math.max(right, x + 1);
+                    bottom = Math.max(bottom, y + 1);
+                }
+            }
+        }
+        return new DetectionResult((left + right) / 2f, (top + bottom) / 2f, right - left, bottom - top, 0.9f, 0);
+    }
+
+    private static YuvFrame.Plane plane(int rows, int width, int rowStride, int pixelStride, int seed) {
+        byte[] data = new byte[(rows - 1) * rowStride + (width - 1) * pixelStride + 1];
+        new Random(seed).nextBytes(data);
+        return new YuvFrame.Plane(ByteBuffer.wrap(data), rowStride, pixelStride);
+    }
+
+    private static byte[] copy(ByteBuffer buffer) {
+        return Arrays.copyOf(buffer.array(), buffer.capacity());
+    }
+}
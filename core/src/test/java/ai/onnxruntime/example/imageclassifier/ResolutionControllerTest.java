@@ -0,0 +1,100 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResolutionControllerTest {
+    private static final long TARGET_MS = 100;
+    private static final int MIN_SAMPLES = 8;
+
+    @Test
+    public void noSwitchBeforeMinSamples() {
+        ResolutionController controller = new ResolutionController(TARGET_MS);
+        assertEquals(320, controller.getInputSize());
+        for (int i = 1; i < MIN_SAMPLES; i++) {
+            assertEquals(320, controller.record(320, 1000));
+        }
+        assertEquals(256, controller.record(320, 1000));
+        assertEquals(256, controller.getInputSize());
+    }
+
+    @Test
+    public void stepsDownOnTheP90NotTheMax() {
+        ResolutionController controller = new ResolutionController(TARGET_MS);
+        // 80ms fits the budget at 320 but not the 416 estimate of 80 * 1.69
+        for (int i = 0; i < 15; i++) {
+            assertEquals(320, controller.record(320, 80));
+        }
+        // With 16 samples the p90 is the second largest, one outlier is ignored
+        assertEquals(320, controller.record(320, 500));
+        // A second one in the window is not
+        assertEquals(256, controller.record(320, 500));
+    }
+
+    @Test
+    public void windowResetsAfterASwitch() {
+        ResolutionController controller = new ResolutionController(TARGET_MS);
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            controller.record(320, 1000);
+        }
+        assertEquals(256, controller.getInputSize());
+        // The slow 320 samples are gone, 256 needs its own MIN_SAMPLES before moving again
+        for (int i = 1; i < MIN_SAMPLES; i++) {
+            assertEquals(256, controller.record(256, 1000));
+        }
+        assertEquals(224, controller.record(256, 1000));
+        // Already at the smallest size
+        for (int i = 0; i < 2 * MIN_SAMPLES; i++) {
+            assertEquals(224, controller.record(224, 1000));
+        }
+    }
+
+    @Test
+    public void stepsUpWhenThePixelRatioEstimateFits() {
+        // 416 has (416 / 320)^2 = 1.69 times the pixels: 59ms estimates to 99.7ms, 60ms to 101.4ms
+        ResolutionController stays = new ResolutionController(TARGET_MS);
+        for (int i = 0; i < 2 * MIN_SAMPLES; i++) {
+            assertEquals(320, stays.record(320, 60));
+        }
+
+        ResolutionController steps = new ResolutionController(TARGET_MS);
+        for (int i = 1; i < MIN_SAMPLES; i++) {
+            assertEquals(320, steps.record(320, 59));
+        }
+        assertEquals(416, steps.record(320, 59));
+        // Already at the largest size
+        for (int i = 0; i < 2 * MIN_SAMPLES; i++) {
+            assertEquals(416, steps.record(416, 1));
+        }
+    }
+
+    @Test
+    public void recordsForThePreviousSizeAreIgnored() {
+        ResolutionController controller = new ResolutionController(TARGET_MS);
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            controller.record(320, 1000);
+        }
+        assertEquals(256, controller.getInputSize());
+        // Frames that started before the switch neither count nor move the size
+        for (int i = 0; i < 2 * MIN_SAMPLES; i++) {
+            assertEquals(256, controller.record(320, 1000));
+        }
+        for (int i = 1; i < MIN_SAMPLES; i++) {
+            assertEquals(256, controller.record(256, 80));
+        }
+        // 80ms at 256 estimates to 125ms at 320, so it stays
+        assertEquals(256, controller.record(256, 80));
+    }
+
+    @Test
+    public void initialSizeFallsBackToTheLargest() {
+        ResolutionController controller = new ResolutionController(new int[] {320, 224}, 300, TARGET_MS);
+        assertEquals(320, controller.getInputSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizesMustBeStrideMultiples() {
+        new ResolutionController(new int[] {224, 300}, 224, TARGET_MS);
+    }
+}
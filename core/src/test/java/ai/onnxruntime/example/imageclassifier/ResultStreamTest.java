@@ -0,0 +1,174 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultStreamTest {
+    // Runs queued drain tasks only when asked, so a subscriber can be made to fall behind
+    private static class QueuedExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    @Test
+    public void everyDeliversAllInOrder() {
+        ResultStream<Integer> stream = new ResultStream<>(8);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ResultStream<Integer>.Subscription subscription =
+                stream.subscribe(executor, ResultStream.Delivery.EVERY, received::add);
+
+        for (int i = 0; i < 5; i++) {
+            stream.publish(i);
+        }
+        assertEquals(1, executor.tasks.size()); // One drain task however many results are waiting
+        executor.runAll();
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), received);
+        assertEquals(5, subscription.getDelivered());
+        assertEquals(0, subscription.getSkipped());
+    }
+
+    @Test
+    public void everySkipsWhatFellOutOfTheRing() {
+        ResultStream<Integer> stream = new ResultStream<>(4);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ResultStream<Integer>.Subscription subscription =
+                stream.subscribe(executor, ResultStream.Delivery.EVERY, received::add);
+
+        for (int i = 0; i < 10; i++) {
+            stream.publish(i);
+        }
+        executor.runAll();
+
+        assertEquals(Arrays.asList(6, 7, 8, 9), received);
+        assertEquals(4, subscription.getDelivered());
+        assertEquals(6, subscription.getSkipped());
+    }
+
+    @Test
+    public void latestDeliversOnlyTheNewest() {
+        ResultStream<Integer> stream = new ResultStream<>(8);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ResultStream<Integer>.Subscription subscription =
+                stream.subscribe(executor, ResultStream.Delivery.LATEST, received::add);
+
+        for (int i = 0; i < 5; i++) {
+            stream.publish(i);
+        }
+        executor.runAll();
+        stream.publish(5);
+        executor.runAll();
+
+        assertEquals(Arrays.asList(4, 5), received);
+        assertEquals(2, subscription.getDelivered());
+        assertEquals(4, subscription.getSkipped());
+        assertEquals(stream.getPublished(), subscription.getDelivered() + subscription.getSkipped());
+    }
+
+    @Test
+    public void subscriptionStartsWithTheNextResult() {
+        ResultStream<Integer> stream = new ResultStream<>(8);
+        stream.publish(0);
+        List<Integer> received = new ArrayList<>();
+        stream.subscribe(Runnable::run, ResultStream.Delivery.EVERY, received::add);
+        stream.publish(1);
+
+        assertEquals(Collections.singletonList(1), received);
+    }
+
+    @Test
+    public void cancelStopsDelivery() {
+        ResultStream<Integer> stream = new ResultStream<>(8);
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> received = new ArrayList<>();
+        ResultStream<Integer>.Subscription subscription =
+                stream.subscribe(executor, ResultStream.Delivery.EVERY, received::add);
+
+        stream.publish(0);
+        executor.runAll();
+        stream.publish(1);
+        subscription.cancel(); // A drain task is already queued and must not deliver
+        executor.runAll();
+        stream.publish(2);
+
+        assertEquals(Collections.singletonList(0), received);
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void subscribersOnOtherThreadsSeeConsistentResults() throws InterruptedException {
+        int count = 10000;
+        ResultStream<Integer> stream = new ResultStream<>(count);
+        ExecutorService everyExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService latestExecutor = Executors.newSingleThreadExecutor();
+        List<Integer> every = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> latest = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch everyDone = new CountDownLatch(1);
+        CountDownLatch latestDone = new CountDownLatch(1);
+        try {
+            ResultStream<Integer>.Subscription everySubscription =
+                    stream.subscribe(everyExecutor, ResultStream.Delivery.EVERY, value -> {
+                        every.add(value);
+                        if (value == count - 1) {
+                            everyDone.countDown();
+                        }
+                    });
+            ResultStream<Integer>.Subscription latestSubscription =
+                    stream.subscribe(latestExecutor, ResultStream.Delivery.LATEST, value -> {
+                        latest.add(value);
+                        if (value == count - 1) {
+                            latestDone.countDown();
+                        }
+                    });
+            for (int i = 0; i < count; i++) {
+                stream.publish(i);
+            }
+            assertTrue(everyDone.await(10, TimeUnit.SECONDS));
+            assertTrue(latestDone.await(10, TimeUnit.SECONDS));
+
+            // The ring holds every result, so nothing is skipped
+            assertEquals(count, every.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, (int) every.get(i));
+            }
+            assertEquals(0, everySubscription.getSkipped());
+
+            // Conflated, but strictly newer each time and ending on the last result
+            for (int i = 1; i < latest.size(); i++) {
+                assertTrue(latest.get(i) > latest.get(i - 1));
+            }
+            assertEquals(count, latestSubscription.getDelivered() + latestSubscription.getSkipped());
+        } finally {
+            everyExecutor.shutdownNow();
+            latestExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package ai.onnxruntime.example.imageclassifier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VerdictIndexTest {
+    private static final int MODEL_VERSION = 3;
+    private static final int POLICY_VERSION = 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopenKeepsLatestVerdicts() throws IOException {
+        File dir = folder.getRoot();
+        try (VerdictIndex index = open(dir)) {
+            index.put(hash(1), detections(1));
+            index.put(hash(2), Collections.<DetectionResult>emptyList());
+            index.put(hash(1), detections(3)); // Replaces the first verdict
+        }
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(2, index.size());
+            assertSame(detections(3), index.lookup(hash(1)));
+            assertSame(Collections.<DetectionResult>emptyList(), index.lookup(hash(2)));
+            assertNull(index.lookup(hash(4)));
+        }
+    }
+
+    @Test
+    public void missingTableIsRebuiltFromTheLog() throws IOException {
+        File dir = folder.getRoot();
+        try (VerdictIndex index = open(dir)) {
+            index.put(hash(1), detections(1));
+            index.put(hash(2), detections(2));
+        }
+        assertTrue(new File(dir, "verdicts.idx").delete());
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(2, index.size());
+            assertSame(detections(1), index.lookup(hash(1)));
+            assertSame(detections(2), index.lookup(hash(2)));
+        }
+    }
+
+    @Test
+    public void shortTornTailIsTruncated() throws IOException {
+        checkTornTail(new byte[]{1, 2, 3}, false);
+        checkTornTail(new byte[]{1, 2, 3}, true);
+    }
+
+    @Test
+    public void longTornTailIsTruncated() throws IOException {
+        // A record header promising more payload than was written
+        byte[] torn = {0, 0, 0, 60, 0x12, 0x34, 0x56, 0x78, 9, 9, 9, 9, 9};
+        checkTornTail(torn, false);
+        checkTornTail(torn, true);
+    }
+
+    @Test
+    public void hashesSharingThePrefixKeepTheirOwnVerdicts() throws IOException {
+        File dir = folder.getRoot();
+        byte[] first = hash(1);
+        byte[] second = hash(2);
+        System.arraycopy(first, 0, second, 0, 8);
+        try (VerdictIndex index = open(dir)) {
+            index.put(first, detections(1));
+            index.put(second, detections(2));
+            index.put(first, detections(3));
+            assertEquals(2, index.size());
+            assertSame(detections(3), index.lookup(first));
+            assertSame(detections(2), index.lookup(second));
+        }
+        assertTrue(new File(dir, "verdicts.idx").delete());
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(2, index.size());
+            assertSame(detections(3), index.lookup(first));
+            assertSame(detections(2), index.lookup(second));
+        }
+    }
+
+    @Test
+    public void compactKeepsOnlyLatestRecords() throws IOException {
+        File dir = folder.getRoot();
+        File logFile = new File(dir, "verdicts.log");
+        try (VerdictIndex index = open(dir)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 50; i++) {
+                    index.put(hash(i), detections(i + round));
+                }
+            }
+            long before = logFile.length();
+            index.compact();
+            assertTrue(logFile.length() < before);
+            assertEquals(50, index.size());
+            for (int i = 0; i < 50; i++) {
+                assertSame(detections(i + 2), index.lookup(hash(i)));
+            }
+            index.put(hash(50), detections(1)); // Appends go to the compacted log
+        }
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(51, index.size());
+            for (int i = 0; i < 50; i++) {
+                assertSame(detections(i + 2), index.lookup(hash(i)));
+            }
+            assertSame(detections(1), index.lookup(hash(50)));
+        }
+    }
+
+    @Test
+    public void tableGrowsPastItsInitialCapacity() throws IOException {
+        File dir = folder.getRoot();
+        int count = 3000;
+        try (VerdictIndex index = open(dir)) {
+            for (int i = 0; i < count; i++) {
+                index.put(hash(i), detections(i % 4));
+            }
+            assertEquals(count, index.size());
+        }
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(count, index.size());
+            for (int i = 0; i < count; i++) {
+                assertSame(detections(i % 4), index.lookup(hash(i)));
+            }
+        }
+    }
+
+    @Test
+    public void otherModelVersionInvalidatesTheIndex() throws IOException {
+        File dir = folder.getRoot();
+        try (VerdictIndex index = open(dir)) {
+            index.put(hash(1), detections(1));
+        }
+        try (VerdictIndex index = new VerdictIndex(dir, MODEL_VERSION + 1, POLICY_VERSION)) {
+            assertEquals(0, index.size());
+            assertNull(index.lookup(hash(1)));
+            index.put(hash(2), detections(2));
+            index.invalidate();
+            assertNull(index.lookup(hash(2)));
+        }
+    }
+
+    @Test
+    public void directoryIsLockedWhileOpen() throws IOException {
+        File dir = folder.getRoot();
+        try (VerdictIndex index = open(dir)) {
+            index.put(hash(1), detections(1));
+            try {
+                open(dir).close();
+                fail("Second index on the same directory must not open");
+            } catch (IOException expected) {
+                // In use
+            }
+            assertSame(detections(1), index.lookup(hash(1))); // The failed open left the files alone
+        }
+        try (VerdictIndex index = open(dir)) {
+            assertSame(detections(1), index.lookup(hash(1)));
+        }
+    }
+
+    // Append garbage after the last record, optionally drop the table, then check reopen and a later append
+    private void checkTornTail(byte[] garbage, boolean dropTable) throws IOException {
+        File dir = folder.newFolder();
+        try (VerdictIndex index = open(dir)) {
+            index.put(hash(1), detections(1));
+            index.put(hash(2), detections(2));
+        }
+        File logFile = new File(dir, "verdicts.log");
+        long validLength = logFile.length();
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.seek(validLength);
+            log.write(garbage);
+        }
+        if (dropTable) {
+            assertTrue(new File(dir, "verdicts.idx").delete());
+        }
+
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(validLength, logFile.length());
+            assertEquals(2, index.size());
+            index.put(hash(3), detections(3));
+        }
+        assertTrue(new File(dir, "verdicts.idx").delete()); // Rebuild must read past the old tail position
+        try (VerdictIndex index = open(dir)) {
+            assertEquals(3, index.size());
+            assertSame(detections(1), index.lookup(hash(1)));
+            assertSame(detections(2), index.lookup(hash(2)));
+            assertSame(detections(3), index.lookup(hash(3)));
+        }
+    }
+
+    private static VerdictIndex open(File dir) throws IOException {
+        return new VerdictIndex(dir, MODEL_VERSION, POLICY_VERSION);
+    }
+
+    private static byte[] hash(int i) {
+        return VerdictIndex.hash(("media-" + i).getBytes());
+    }
+
+    private static List<DetectionResult> detections(int count) {
+        List<DetectionResult> detections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            detections.add(new DetectionResult(i, 2f * i, 10f + i, 20f, 0.5f + i / 100f, i % 18));
+        }
+        return detections;
+    }
+
+    private static void assertSame(List<DetectionResult> expected, List<DetectionResult> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            DetectionResult e = expected.get(i);
+            DetectionResult a = actual.get(i);
+            assertEquals(Arrays.asList(e.x, e.y, e.width, e.height, e.confidence),
+                    Arrays.asList(a.x, a.y, a.width, a.height, a.confidence));
+            assertEquals(e.classIndex, a.classIndex);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.*;
+import ai.onnxruntime.example.imageclassifier.*;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Coalesces concurrent detection requests into [B, 3, 320, 320] batches.
+// A worker takes the first queued request, then waits up to maxWait for more until the batch is full, and runs
+// the whole batch in one OrtSession.run. Models with a fixed batch dimension run with batches of one.
+public class BatchingDetector implements AutoCloseable {
+    private static final int SIZE = DetectionDecoder.REFERENCE_SIZE;
+    private static final int INPUT_LENGTH = 3 * SIZE * SIZE;
+
+    private final OrtSession session;
+    private final String inputName;
+    private final int maxBatch;
+    private final long maxWaitNs;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final AtomicLongArray batchSizes;
+    private final LatencyRecorder latency = new LatencyRecorder(8192);
+    private final List<Thread> workers = new ArrayList<>();
+    private final Object submitLock = new Object(); // Orders submit with close, no request is queued after the drain
+    private volatile boolean running = true;
+
+    public BatchingDetector(OrtSession session, int maxBatch, long maxWaitMs, int workerCount) throws OrtException {
+        this.session = session;
+        this.inputName = session.getInputNames().iterator().next();
+        this.maxBatch = hasDynamicBatch(session) ? maxBatch : 1;
+        this.maxWaitNs = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.batchSizes = new AtomicLongArray(this.maxBatch + 1);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "batching-detector-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    static boolean hasDynamicBatch(OrtSession session) throws OrtException {
+        NodeInfo info = session.getInputInfo().values().iterator().next();
+        return info.getInfo() instanceof TensorInfo && ((TensorInfo) info.getInfo()).getShape()[0] < 0;
+    }
+
+    // Queue a 320x320 ARGB image, the future completes with its detections
+    public CompletableFuture<Result> submit(int[] pixels) {
+        float[] input = new float[INPUT_LENGTH];
+        ParallelKernels.normalizeToNchw(pixels, SIZE, SIZE, input);
+        Request request = new Request(input);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(request);
+                return request.future;
+            }
+        }
+        request.future.completeExceptionally(new IllegalStateException("Detector is closed"));
+        return request.future;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Number of batches run for every batch size, index 0 is unused
+    public long[] getBatchSizeCounts() {
+        long[] counts = new long[batchSizes.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = batchSizes.get(i);
+        }
+        return counts;
+    }
+
+    // Latency from submit to completion over the most recent requests
+    public LatencyRecorder getLatency() {
+        return latency;
+    }
+
+    private void runWorker() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNs;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                run(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void run(List<Request> batch) {
+        int batchSize = batch.size();
+        FloatBuffer input = FloatBuffer.allocate(batchSize * INPUT_LENGTH);
+        for (Request request : batch) {
+            input.put(request.input);
+        }
+        input.rewind();
+        long[] shape = {batchSize, 3, SIZE, SIZE};
+        try (OnnxTensor tensor = OnnxTensor.createTensor(OrtEnvironment.getEnvironment(), input, shape)) {
+            long startTime = System.nanoTime();
+            try (OrtSession.Result output = session.run(Collections.singletonMap(inputName, tensor))) {
+                long processTimeMs = (System.nanoTime() - startTime) / 1000000;
+                float[][][] rawOutput = (float[][][]) output.get(0).getValue();
+                batchSizes.incrementAndGet(batchSize);
+                for (int b = 0; b < batchSize; b++) {
+                    Result result = new Result();
+                    result.processTimeMs = processTimeMs;
+                    NudeNetPipeline.setDetections(result, DetectionDecoder.decode(rawOutput[b]));
+                    Request request = batch.get(b);
+                    latency.record(System.nanoTime() - request.submitTimeNs);
+                    request.future.complete(result);
+                }
+            }
+        } catch (Exception | OutOfMemoryError e) {
+            // Fail the batch rather than the worker, whose death would leave the queued futures pending
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (submitLock) {
+            running = false;
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("Detector is closed"));
+        }
+    }
+
+    private static class Request {
+        final float[] input;
+        final long submitTimeNs = System.nanoTime();
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        Request(float[] input) {
+            this.input = input;
+        }
+    }
+}
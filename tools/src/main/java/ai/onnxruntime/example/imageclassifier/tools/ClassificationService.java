@@ -0,0 +1,200 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.example.imageclassifier.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Embedded HTTP endpoint running the NudeNet detector for moderation hosts.
+//   POST /detect   image bytes (JPEG, PNG, ...) -> {"verdict": ..., "detections": [...]}
+//   GET  /metrics  queue depth, batch-size distribution, latency percentiles and verdict index hits
+// Requests are decoded on the HTTP threads and coalesced into batches by BatchingDetector.
+// With a VerdictIndex, images already scanned by the same model and policy are answered from the index and only
+// cost hashing and a lookup.
+public class ClassificationService {
+    private static final int MAX_BODY_BYTES = 32 * 1024 * 1024;
+
+    private final BatchingDetector detector;
+    private final VerdictPolicy policy;
+    private final VerdictIndex index;
+    private final AtomicLong indexHits = new AtomicLong();
+    private final AtomicLong indexMisses = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // index may be null, then every image runs through the detector
+    public ClassificationService(BatchingDetector detector, VerdictPolicy policy, VerdictIndex index, int port,
+                                 int httpThreads) throws IOException {
+        this.detector = detector;
+        this.policy = policy;
+        this.index = index;
+        this.executor = Executors.newFixedThreadPool(httpThreads);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/detect", this::handleDetect);
+        this.server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleDetect(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("POST an image"));
+            return;
+        }
+        Result result;
+        try {
+            byte[] body = readBody(exchange.getRequestBody());
+            byte[] contentHash = index != null ? VerdictIndex.hash(body) : null;
+            List<DetectionResult> cached = contentHash != null ? lookup(contentHash) : null;
+            if (cached != null) {
+                result = new Result();
+                NudeNetPipeline.setDetections(result, cached);
+            } else {
+                result = detector.submit(decode(body)).get();
+                if (contentHash != null) {
+                    store(contentHash, result.detections);
+                }
+            }
+        } catch (IOException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 500, error(e.toString()));
+            return;
+        } catch (ExecutionException e) {
+            respond(exchange, 500, error(String.valueOf(e.getCause())));
+            return;
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // The client gets a JSON error instead of a reset connection
+            respond(exchange, 500, error(e.toString()));
+            return;
+        }
+        respond(exchange, 200, toJson(result));
+    }
+
+    // Malformed images can make ImageIO decoders throw unchecked exceptions, they are the client's error too
+    private static int[] decode(byte[] body) throws IOException {
+        try {
+            return ImageInput.decode(body);
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot decode image: " + e, e);
+        }
+    }
+
+    // Index failures only cost the cache, the request still gets a verdict from the detector
+    private List<DetectionResult> lookup(byte[] contentHash) {
+        try {
+            List<DetectionResult> detections = index.lookup(contentHash);
+            (detections != null ? indexHits : indexMisses).incrementAndGet();
+            return detections;
+        } catch (IOException e) {
+            System.err.println("Verdict index lookup failed: " + e);
+            indexMisses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private void store(byte[] contentHash, List<DetectionResult> detections) {
+        try {
+            index.put(contentHash, detections);
+        } catch (IOException e) {
+            System.err.println("Verdict index update failed: " + e);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"queueDepth\":").append(detector.getQueueDepth());
+        json.append(",\"maxBatch\":").append(detector.getMaxBatch());
+        json.append(",\"batchSizes\":{");
+        long[] counts = detector.getBatchSizeCounts();
+        boolean first = true;
+        for (int size = 1; size < counts.length; size++) {
+            if (counts[size] == 0) {
+                continue;
+            }
+            json.append(first ? "" : ",").append('"').append(size).append("\":").append(counts[size]);
+            first = false;
+        }
+        LatencyRecorder latency = detector.getLatency();
+        json.append(String.format(Locale.ROOT,
+                "},\"latencyMs\":{\"count\":%d,\"mean\":%.2f,\"p50\":%.2f,\"p90\":%.2f,\"p99\":%.2f}",
+                latency.count(), latency.meanMs(), latency.percentileMs(0.5), latency.percentileMs(0.9),
+                latency.percentileMs(0.99)));
+        json.append(",\"verdictIndex\":{\"hits\":").append(indexHits.get())
+                .append(",\"misses\":").append(indexMisses.get()).append("}}");
+        respond(exchange, 200, json.toString());
+    }
+
+    String toJson(Result result) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"verdict\":\"").append(policy.isUnsafe(result.detections) ? "unsafe" : "safe").append('"');
+        json.append(",\"processTimeMs\":").append(result.processTimeMs);
+        json.append(",\"detections\":[");
+        for (int i = 0; i < result.detections.size(); i++) {
+            DetectionResult d = result.detections.get(i);
+            json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"class\":%d,\"confidence\":%.4f,\"x\":%.2f,\"y\":%.2f,\"width\":%.2f,\"height\":%.2f}",
+                    d.classIndex, d.confidence, d.x, d.y, d.width, d.height));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] data = new byte[16384];
+        int nRead;
+        while ((nRead = in.read(data, 0, data.length)) != -1) {
+            buffer.write(data, 0, nRead);
+            if (buffer.size() > MAX_BODY_BYTES) {
+                throw new IOException("Image larger than " + MAX_BODY_BYTES + " bytes");
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
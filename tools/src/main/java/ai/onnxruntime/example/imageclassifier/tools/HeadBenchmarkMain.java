@@ -0,0 +1,58 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.example.imageclassifier.*;
+
+import java.util.Locale;
+import java.util.Random;
+
+// Times model heads on synthetic outputs, without a model or session.
+//
+// Usage: head-benchmark [--iterations N] [--classes N]
+public class HeadBenchmarkMain {
+
+    public static void main(String[] args) {
+        int iterations = 10000;
+        int classes = 1000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--classes": classes = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Usage: head-benchmark [--iterations N] [--classes N]");
+                    System.exit(2);
+            }
+        }
+
+        Random random = new Random(42);
+        int size = DetectionDecoder.REFERENCE_SIZE;
+        float[][][] detectorOutput = new float[1][DetectionDecoder.NUM_BOX_FEATURES + DetectionDecoder.NUM_CLASSES]
+                [DetectionDecoder.anchorCount(size)];
+        for (float[] feature : detectorOutput[0]) {
+            for (int i = 0; i < feature.length; i++) {
+                feature[i] = random.nextFloat() * 0.25f;
+            }
+        }
+        float[][] classifierOutput = new float[1][classes];
+        for (int i = 0; i < classes; i++) {
+            classifierOutput[0][i] = (float) random.nextGaussian() * 4f;
+        }
+
+        run("yolo-detector", new YoloDetectorHead(), detectorOutput, size, iterations);
+        run("classifier", new ClassifierHead(3, true, Normalization.IMAGENET), classifierOutput, size, iterations);
+    }
+
+    static void run(String name, ModelHead head, Object output, int inputSize, int iterations) {
+        // Warm up the JIT before measuring
+        for (int i = 0; i < iterations / 10 + 1; i++) {
+            head.decode(output, inputSize, new Result());
+        }
+        LatencyRecorder latency = new LatencyRecorder();
+        for (int i = 0; i < iterations; i++) {
+            Result result = new Result();
+            long start = System.nanoTime();
+            head.decode(output, inputSize, result);
+            latency.record(System.nanoTime() - start);
+        }
+        System.out.println(String.format(Locale.ROOT, "%-14s %s", name, latency));
+    }
+}
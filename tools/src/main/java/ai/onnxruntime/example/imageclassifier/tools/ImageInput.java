@@ -0,0 +1,56 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.example.imageclassifier.DetectionDecoder;
+import ai.onnxruntime.example.imageclassifier.ImageOps;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+// Decodes stored images into letterboxed 320x320 ARGB model input with ImageIO.
+// Large images are subsampled while decoding rather than decoded at full resolution and shrunk afterwards.
+public class ImageInput {
+
+    public static int[] decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sampleSize = ImageOps.decodeSampleSize(reader.getWidth(0), reader.getHeight(0),
+                        DetectionDecoder.REFERENCE_SIZE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(sampleSize, sampleSize, 0, 0);
+                return toModelInput(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Letterbox to the model input size, see ImageOps.letterboxExtent
+    public static int[] toModelInput(BufferedImage image) {
+        int size = DetectionDecoder.REFERENCE_SIZE;
+        int width = ImageOps.letterboxExtent(image.getWidth(), image.getWidth(), image.getHeight(), size);
+        int height = ImageOps.letterboxExtent(image.getHeight(), image.getWidth(), image.getHeight(), size);
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, size, size);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled.getRGB(0, 0, size, size, null, 0, size);
+    }
+}
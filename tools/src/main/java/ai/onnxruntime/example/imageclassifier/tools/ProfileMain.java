@@ -0,0 +1,102 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.*;
+import ai.onnxruntime.example.imageclassifier.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+// Profiles the model with ORT's built-in profiler and prints a per-operator hotspot report.
+// Frames come from a recording if given, otherwise a synthetic mid-gray frame is used.
+//
+// Usage: profile --model nudenet_320n.onnx [--runs 50] [--provider cpu|xnnpack] [--threads N]
+//                [--frames frames.bin] [--csv report.csv] [--top 20]
+public class ProfileMain {
+
+    public static void main(String[] args) throws Exception {
+        String modelPath = null;
+        String framesPath = null;
+        String csvPath = null;
+        String provider = "cpu";
+        int runs = 50;
+        int threads = 0;
+        int top = 20;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model": modelPath = args[++i]; break;
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--provider": provider = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--frames": framesPath = args[++i]; break;
+                case "--csv": csvPath = args[++i]; break;
+                case "--top": top = Integer.parseInt(args[++i]); break;
+                default: usage("Unknown option " + args[i]);
+            }
+        }
+        if (modelPath == null || runs <= 0) {
+            usage("--model is required and --runs must be positive");
+        }
+
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        if (threads > 0) {
+            options.setIntraOpNumThreads(threads);
+        }
+        switch (provider) {
+            case "cpu": break;
+            case "xnnpack": options.addXnnpack(Collections.<String, String>emptyMap()); break;
+            default: usage("Unknown provider " + provider);
+        }
+        OrtProfiler.enable(options, new File("ort_profile_" + provider));
+
+        try (OrtSession session = env.createSession(modelPath, options)) {
+            NudeNetPipeline pipeline = new NudeNetPipeline(session);
+            // Warm up first so lazy initialization stays out of the report
+            pipeline.warmUp();
+            OrtProfiler profiler = new OrtProfiler(session, runs, 1);
+            FrameReader reader = framesPath != null ? new FrameReader(new FileInputStream(framesPath)) : null;
+            try {
+                ProfileReport report = null;
+                while (report == null) {
+                    YuvFrame frame = reader != null ? reader.read() : null;
+                    if (frame == null) {
+                        frame = syntheticFrame();
+                    }
+                    pipeline.process(frame);
+                    report = profiler.onRun();
+                }
+                System.out.println("provider=" + provider);
+                System.out.print(report.format(top));
+                if (csvPath != null) {
+                    try (PrintWriter out = new PrintWriter(csvPath, "UTF-8")) {
+                        report.writeCsv(out);
+                    }
+                }
+            } finally {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    // 640x480 mid-gray frame, enough to exercise every node of the detector
+    static YuvFrame syntheticFrame() {
+        int width = 640;
+        int height = 480;
+        byte[] luma = new byte[width * height];
+        java.util.Arrays.fill(luma, (byte) 128);
+        YuvFrame.Plane[] planes = {new YuvFrame.Plane(ByteBuffer.wrap(luma), width, 1)};
+        return new YuvFrame(width, height, 0, System.nanoTime(), planes);
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: profile --model <model.onnx> [--runs 50] [--provider cpu|xnnpack] [--threads N]"
+                + " [--frames <frames.bin>] [--csv <report.csv>] [--top 20]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,140 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.*;
+import ai.onnxruntime.example.imageclassifier.*;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Replays frames recorded on a device through the NudeNet pipeline on a plain JVM.
+// Prints latency and throughput, and optionally writes every frame's detections so two builds can be diffed.
+// With --redacted, unsafe regions are pixelated or blurred in place and the frames written to a new recording.
+//
+// Usage: replay --model nudenet_320n.onnx --frames frames.bin [--realtime] [--repeat N] [--detections out.csv]
+//               [--redacted out.bin] [--redact-mode pixelate|blur] [--redact-strength N]
+public class ReplayMain {
+
+    public static void main(String[] args) throws Exception {
+        String modelPath = null;
+        String framesPath = null;
+        String detectionsPath = null;
+        String redactedPath = null;
+        Redactor.Mode redactMode = Redactor.Mode.PIXELATE;
+        int redactStrength = 16;
+        boolean realtime = false;
+        int repeat = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model": modelPath = args[++i]; break;
+                case "--frames": framesPath = args[++i]; break;
+                case "--detections": detectionsPath = args[++i]; break;
+                case "--redacted": redactedPath = args[++i]; break;
+                case "--redact-mode": redactMode = Redactor.Mode.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                case "--redact-strength": redactStrength = Integer.parseInt(args[++i]); break;
+                case "--realtime": realtime = true; break;
+                case "--repeat": repeat = Integer.parseInt(args[++i]); break;
+                default: usage("Unknown option " + args[i]);
+            }
+        }
+        if (modelPath == null || framesPath == null) {
+            usage("--model and --frames are required");
+        }
+
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        try (OrtSession session = env.createSession(modelPath, new OrtSession.SessionOptions());
+             PrintWriter detections = detectionsPath != null ? new PrintWriter(detectionsPath, "UTF-8") : null;
+             FrameRecorder redacted = redactedPath != null ? new FrameRecorder(new FileOutputStream(redactedPath)) : null) {
+            NudeNetPipeline pipeline = new NudeNetPipeline(session);
+            Redactor redactor = new Redactor(redactMode, redactStrength);
+            LatencyRecorder latency = new LatencyRecorder();
+            long startTime = System.nanoTime();
+            int frames = 0;
+            for (int pass = 0; pass < repeat; pass++) {
+                frames += replay(pipeline, framesPath, realtime, latency, pass == 0 ? detections : null,
+                        redactor, pass == 0 ? redacted : null);
+            }
+            double elapsedSec = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf(Locale.ROOT, "frames=%d elapsed=%.2fs throughput=%.1f fps%n",
+                    frames, elapsedSec, frames / elapsedSec);
+            System.out.println("latency " + latency);
+        }
+    }
+
+    static int replay(NudeNetPipeline pipeline, String framesPath, boolean realtime, LatencyRecorder latency,
+                      PrintWriter detections, Redactor redactor, FrameRecorder redacted)
+            throws IOException, OrtException, InterruptedException {
+        int index = 0;
+        try (FrameReader reader = new FrameReader(new FileInputStream(framesPath))) {
+            long firstTimestamp = 0;
+            long replayStart = System.nanoTime();
+            YuvFrame frame;
+            while ((frame = reader.read()) != null) {
+                if (index == 0) {
+                    firstTimestamp = frame.timestampNs;
+                }
+                if (realtime) {
+                    // Wait until the frame's offset in the recording has elapsed
+                    long waitNs = (frame.timestampNs - firstTimestamp) - (System.nanoTime() - replayStart);
+                    if (waitNs > 0) {
+                        Thread.sleep(waitNs / 1000000, (int) (waitNs % 1000000));
+                    }
+                }
+                long frameStart = System.nanoTime();
+                Result result = pipeline.process(frame);
+                latency.record(System.nanoTime() - frameStart);
+                if (detections != null) {
+                    writeDetections(detections, index, frame, result);
+                }
+                if (redacted != null) {
+                    // Replayed planes are heap copies, so they can be redacted in place
+                    redactor.redact(frame, unsafeDetections(result));
+                    redacted.write(frame);
+                }
+                index++;
+            }
+        }
+        return index;
+    }
+
+    static List<DetectionResult> unsafeDetections(Result result) {
+        List<DetectionResult> unsafe = new ArrayList<>();
+        for (DetectionResult d : result.detections) {
+            if (VerdictPolicy.isUnsafeClass(d.classIndex)) {
+                unsafe.add(d);
+            }
+        }
+        return unsafe;
+    }
+
+    // One line per detection: frame, timestamp, class, confidence, x, y, w, h.
+    // Classifier results write their top classes without a box. A frame with nothing detected still writes one
+    // line with class -1, so an empty frame is told apart from a missing one when diffing two runs.
+    static void writeDetections(PrintWriter out, int index, YuvFrame frame, Result result) {
+        for (DetectionResult d : result.detections) {
+            out.printf(Locale.ROOT, "%d,%d,%d,%.6f,%.3f,%.3f,%.3f,%.3f%n",
+                    index, frame.timestampNs, d.classIndex, d.confidence, d.x, d.y, d.width, d.height);
+        }
+        if (result.detections.isEmpty()) {
+            for (int i = 0; i < result.detectedIndices.size(); i++) {
+                out.printf(Locale.ROOT, "%d,%d,%d,%.6f,,,,%n",
+                        index, frame.timestampNs, result.detectedIndices.get(i), result.detectedScore.get(i));
+            }
+            if (result.detectedIndices.isEmpty()) {
+                out.printf(Locale.ROOT, "%d,%d,-1,,,,,%n", index, frame.timestampNs);
+            }
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: replay --model <model.onnx> --frames <frames.bin> [--realtime] [--repeat N]"
+                + " [--detections <out.csv>] [--redacted <out.bin>] [--redact-mode pixelate|blur]"
+                + " [--redact-strength N]");
+        System.exit(2);
+    }
+}
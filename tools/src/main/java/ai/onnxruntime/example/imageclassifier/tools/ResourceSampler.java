@@ -0,0 +1,58 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+// Samples process memory: resident set size (native and Java), Java heap and direct buffer usage
+public class ResourceSampler {
+
+    public static class Sample {
+        public final long timeMs;
+        public final long rssBytes;
+        public final long heapBytes;
+        public final long directBytes;
+        public final double framesPerSecond;
+
+        Sample(long timeMs, long rssBytes, long heapBytes, long directBytes, double framesPerSecond) {
+            this.timeMs = timeMs;
+            this.rssBytes = rssBytes;
+            this.heapBytes = heapBytes;
+            this.directBytes = directBytes;
+            this.framesPerSecond = framesPerSecond;
+        }
+    }
+
+    // Heap is measured after a full GC so only live objects count
+    public static Sample sample(long timeMs, double framesPerSecond) {
+        System.gc();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return new Sample(timeMs, rssBytes(), heap, directBytes(), framesPerSecond);
+    }
+
+    // VmRSS from /proc, -1 where it is not available
+    static long rssBytes() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not on Linux
+        }
+        return -1;
+    }
+
+    static long directBytes() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return -1;
+    }
+}
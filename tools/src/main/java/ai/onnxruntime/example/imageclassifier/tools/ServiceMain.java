@@ -0,0 +1,87 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.*;
+import ai.onnxruntime.example.imageclassifier.VerdictIndex;
+import ai.onnxruntime.example.imageclassifier.VerdictPolicy;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+// Runs the NudeNet detector as a local HTTP sidecar.
+// With --index-dir, verdicts are kept in a VerdictIndex stamped with a checksum of the model file, so repeat
+// uploads skip the detector until the model or the policy changes.
+//
+// Usage: service --model nudenet_320n.onnx [--port 8080] [--max-batch 8] [--max-wait-ms 5] [--workers 1]
+//                [--http-threads 16] [--index-dir dir]
+public class ServiceMain {
+
+    public static void main(String[] args) throws Exception {
+        String modelPath = null;
+        int port = 8080;
+        int maxBatch = 8;
+        long maxWaitMs = 5;
+        int workers = 1;
+        int httpThreads = 16;
+        String indexDir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model": modelPath = args[++i]; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--max-batch": maxBatch = Integer.parseInt(args[++i]); break;
+                case "--max-wait-ms": maxWaitMs = Long.parseLong(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--http-threads": httpThreads = Integer.parseInt(args[++i]); break;
+                case "--index-dir": indexDir = args[++i]; break;
+                default: usage("Unknown option " + args[i]);
+            }
+        }
+        if (modelPath == null) {
+            usage("--model is required");
+        }
+
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        OrtSession session = env.createSession(modelPath, new OrtSession.SessionOptions());
+        BatchingDetector detector = new BatchingDetector(session, maxBatch, maxWaitMs, workers);
+        VerdictIndex index = indexDir != null
+                ? new VerdictIndex(new File(indexDir), modelVersion(modelPath), VerdictPolicy.VERSION) : null;
+        ClassificationService service = new ClassificationService(
+                detector, new VerdictPolicy(), index, port, httpThreads);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.stop();
+            try {
+                detector.close();
+                session.close();
+                if (index != null) {
+                    index.close();
+                }
+            } catch (Exception e) {
+                System.err.println("Error shutting down: " + e);
+            }
+        }));
+        service.start();
+        System.out.println("Listening on port " + service.getPort() + ", max batch " + detector.getMaxBatch());
+    }
+
+    // CRC32 of the model file, any retrained or re-exported model invalidates the stored verdicts
+    static int modelVersion(String modelPath) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(modelPath)) {
+            byte[] data = new byte[1 << 16];
+            int nRead;
+            while ((nRead = in.read(data, 0, data.length)) != -1) {
+                crc.update(data, 0, nRead);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: service --model <model.onnx> [--port 8080] [--max-batch 8] [--max-wait-ms 5]"
+                + " [--workers 1] [--http-threads 16] [--index-dir <dir>]");
+        System.exit(2);
+    }
+}
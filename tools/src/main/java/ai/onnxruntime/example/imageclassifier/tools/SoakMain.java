@@ -0,0 +1,193 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.*;
+import ai.onnxruntime.example.imageclassifier.*;
+
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Long-running soak test of the NudeNet pipeline on synthetic frames.
+// Samples RSS, Java heap, direct memory and throughput at a fixed interval and compares the end of the run with
+// the start, after a warm-up period. Exits with status 1 when any of them drifts beyond its limit, which points
+// at native or Java leaks, or at throughput that degrades over time.
+//
+// Usage: soak --model nudenet_320n.onnx [--minutes 60] [--sample-seconds 10] [--warmup-seconds 60]
+//             [--recreate-every N] [--max-rss-growth-mb 64] [--max-heap-growth-mb 32]
+//             [--max-direct-growth-mb 16] [--max-throughput-drop 0.1] [--csv soak.csv]
+public class SoakMain {
+    private static final int WINDOW_SAMPLES = 5; // Samples compared at the start and at the end of the run
+
+    public static void main(String[] args) throws Exception {
+        String modelPath = null;
+        String csvPath = null;
+        double minutes = 60;
+        double sampleSeconds = 10;
+        double warmupSeconds = 60;
+        int recreateEvery = 0;
+        double maxRssGrowthMb = 64;
+        double maxHeapGrowthMb = 32;
+        double maxDirectGrowthMb = 16;
+        double maxThroughputDrop = 0.1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model": modelPath = args[++i]; break;
+                case "--csv": csvPath = args[++i]; break;
+                case "--minutes": minutes = Double.parseDouble(args[++i]); break;
+                case "--sample-seconds": sampleSeconds = Double.parseDouble(args[++i]); break;
+                case "--warmup-seconds": warmupSeconds = Double.parseDouble(args[++i]); break;
+                case "--recreate-every": recreateEvery = Integer.parseInt(args[++i]); break;
+                case "--max-rss-growth-mb": maxRssGrowthMb = Double.parseDouble(args[++i]); break;
+                case "--max-heap-growth-mb": maxHeapGrowthMb = Double.parseDouble(args[++i]); break;
+                case "--max-direct-growth-mb": maxDirectGrowthMb = Double.parseDouble(args[++i]); break;
+                case "--max-throughput-drop": maxThroughputDrop = Double.parseDouble(args[++i]); break;
+                default: usage("Unknown option " + args[i]);
+            }
+        }
+        if (modelPath == null) {
+            usage("--model is required");
+        }
+
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        PrintWriter csv = csvPath != null ? new PrintWriter(csvPath, "UTF-8") : null;
+        if (csv != null) {
+            csv.println("time_s,rss_mb,heap_mb,direct_mb,fps");
+        }
+        List<ResourceSampler.Sample> samples = new ArrayList<>();
+        Random random = new Random(7);
+        FrameSource frames = new FrameSource(1280, 720, random);
+
+        long startMs = System.currentTimeMillis();
+        long endMs = startMs + (long) (minutes * 60000);
+        long warmupEndMs = startMs + (long) (warmupSeconds * 1000);
+        long sampleIntervalMs = (long) (sampleSeconds * 1000);
+        long nextSampleMs = warmupEndMs;
+        long framesSinceSample = 0;
+        long lastSampleMs = startMs;
+        long totalFrames = 0;
+
+        OrtSession session = env.createSession(modelPath, new OrtSession.SessionOptions());
+        NudeNetPipeline pipeline = new NudeNetPipeline(session);
+        try {
+            while (System.currentTimeMillis() < endMs) {
+                pipeline.process(frames.next());
+                totalFrames++;
+                framesSinceSample++;
+
+                // Mimic the app switching analyzers, the old session must be released completely
+                if (recreateEvery > 0 && totalFrames % recreateEvery == 0) {
+                    session.close();
+                    session = env.createSession(modelPath, new OrtSession.SessionOptions());
+                    pipeline = new NudeNetPipeline(session);
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextSampleMs) {
+                    double fps = framesSinceSample * 1000.0 / Math.max(1, now - lastSampleMs);
+                    ResourceSampler.Sample sample = ResourceSampler.sample(now - startMs, fps);
+                    samples.add(sample);
+                    if (csv != null) {
+                        csv.printf(Locale.ROOT, "%.1f,%.1f,%.1f,%.1f,%.2f%n", sample.timeMs / 1000.0,
+                                mb(sample.rssBytes), mb(sample.heapBytes), mb(sample.directBytes), fps);
+                        csv.flush();
+                    }
+                    // Sampling runs a GC, start the next throughput interval after it
+                    lastSampleMs = System.currentTimeMillis();
+                    framesSinceSample = 0;
+                    nextSampleMs = lastSampleMs + sampleIntervalMs;
+                }
+            }
+        } finally {
+            session.close();
+            if (csv != null) {
+                csv.close();
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "frames=%d samples=%d%n", totalFrames, samples.size());
+        if (samples.size() < 2 * WINDOW_SAMPLES) {
+            System.out.println("Not enough samples to judge drift, run longer or sample more often");
+            System.exit(2);
+        }
+        boolean failed = false;
+        failed |= checkGrowth("rss", samples, s -> s.rssBytes, maxRssGrowthMb);
+        failed |= checkGrowth("heap", samples, s -> s.heapBytes, maxHeapGrowthMb);
+        failed |= checkGrowth("direct", samples, s -> s.directBytes, maxDirectGrowthMb);
+        double startFps = median(samples.subList(0, WINDOW_SAMPLES), s -> s.framesPerSecond);
+        double endFps = median(samples.subList(samples.size() - WINDOW_SAMPLES, samples.size()), s -> s.framesPerSecond);
+        double drop = startFps > 0 ? (startFps - endFps) / startFps : 0;
+        boolean throughputFailed = drop > maxThroughputDrop;
+        System.out.printf(Locale.ROOT, "throughput start=%.2f fps end=%.2f fps drop=%.1f%% limit=%.1f%% %s%n",
+                startFps, endFps, drop * 100, maxThroughputDrop * 100, throughputFailed ? "FAIL" : "ok");
+        failed |= throughputFailed;
+        System.exit(failed ? 1 : 0);
+    }
+
+    interface Metric {
+        double get(ResourceSampler.Sample sample);
+    }
+
+    // Compare the medians of the first and last windows to ignore one-off spikes
+    private static boolean checkGrowth(String name, List<ResourceSampler.Sample> samples, Metric metric,
+                                       double limitMb) {
+        double start = median(samples.subList(0, WINDOW_SAMPLES), metric);
+        double end = median(samples.subList(samples.size() - WINDOW_SAMPLES, samples.size()), metric);
+        if (start < 0 || end < 0) {
+            System.out.println(name + " not available");
+            return false;
+        }
+        double growthMb = mb((long) (end - start));
+        boolean failed = growthMb > limitMb;
+        System.out.printf(Locale.ROOT, "%s start=%.1f MB end=%.1f MB growth=%.1f MB limit=%.1f MB %s%n",
+                name, mb((long) start), mb((long) end), growthMb, limitMb, failed ? "FAIL" : "ok");
+        return failed;
+    }
+
+    private static double median(List<ResourceSampler.Sample> samples, Metric metric) {
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = metric.get(samples.get(i));
+        }
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    // Synthetic camera frames, a few noise patterns rotated through so every frame differs from the last
+    static class FrameSource {
+        private final int width;
+        private final int height;
+        private final byte[][] patterns = new byte[4][];
+        private int index = 0;
+
+        FrameSource(int width, int height, Random random) {
+            this.width = width;
+            this.height = height;
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = new byte[width * height];
+                random.nextBytes(patterns[i]);
+            }
+        }
+
+        YuvFrame next() {
+            byte[] luma = patterns[index++ % patterns.length];
+            YuvFrame.Plane[] planes = {new YuvFrame.Plane(ByteBuffer.wrap(luma), width, 1)};
+            return new YuvFrame(width, height, 90, System.nanoTime(), planes);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: soak --model <model.onnx> [--minutes 60] [--sample-seconds 10]"
+                + " [--warmup-seconds 60] [--recreate-every N] [--max-rss-growth-mb 64] [--max-heap-growth-mb 32]"
+                + " [--max-direct-growth-mb 16] [--max-throughput-drop 0.1] [--csv <soak.csv>]");
+        System.exit(2);
+    }
+}
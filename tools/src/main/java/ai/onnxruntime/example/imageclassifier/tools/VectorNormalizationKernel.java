@@ -0,0 +1,51 @@
+package ai.onnxruntime.example.imageclassifier.tools;
+
+import ai.onnxruntime.example.imageclassifier.Normalization;
+import ai.onnxruntime.example.imageclassifier.NormalizationKernel;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Normalization kernel on the incubating Vector API, registered through ServiceLoader.
+// Lanes run the same (value / 255 - mean) / std float operations as the lookup tables, so results are identical.
+// Needs --add-modules jdk.incubator.vector, without it loading fails and the scalar kernel is used.
+public class VectorNormalizationKernel implements NormalizationKernel {
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    public VectorNormalizationKernel() {
+        if (INT_SPECIES.length() != FLOAT_SPECIES.length()) {
+            throw new IllegalStateException("Int and float vectors have different lane counts");
+        }
+    }
+
+    @Override
+    public void normalize(int[] pixels, int from, int to, int planeSize, Normalization normalization, float[] out) {
+        channel(pixels, from, to, 16, normalization, 0, out, 0);
+        channel(pixels, from, to, 8, normalization, 1, out, planeSize);
+        channel(pixels, from, to, 0, normalization, 2, out, planeSize * 2);
+    }
+
+    private static void channel(int[] pixels, int from, int to, int shift, Normalization normalization, int channel,
+                                float[] out, int offset) {
+        float mean = normalization.getMean(channel);
+        float std = normalization.getStd(channel);
+        int idx = from;
+        int upper = from + INT_SPECIES.loopBound(to - from);
+        for (; idx < upper; idx += INT_SPECIES.length()) {
+            IntVector values = IntVector.fromArray(INT_SPECIES, pixels, idx)
+                    .lanewise(VectorOperators.LSHR, shift)
+                    .and(0xFF);
+            ((FloatVector) values.convert(VectorOperators.I2F, 0))
+                    .div(255f)
+                    .sub(mean)
+                    .div(std)
+                    .intoArray(out, idx + offset);
+        }
+        float[] lut = normalization.getLut(channel);
+        for (; idx < to; idx++) {
+            out[idx + offset] = lut[pixels[idx] >>> shift & 0xFF];
+        }
+    }
+}